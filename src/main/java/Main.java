@@ -10,6 +10,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -20,7 +21,8 @@ public class Main {
             System.out.println("Please provide the file containing the paths to the collection of test files");
             return;
         }
-        if (!args[0].isEmpty()) {
+        boolean standardInput = args[0].equals("-");
+        if (!args[0].isEmpty() && !standardInput) {
             File inputFile = new File(args[0]);
             if (!inputFile.exists() || inputFile.isDirectory()) {
                 System.out.println("Please provide a valid file containing the paths to the collection of test files");
@@ -31,14 +33,19 @@ public class Main {
         TestSmellDetector testSmellDetector = new TestSmellDetector(new DefaultThresholds());
 
         /*
-          Read the input file and build the TestFile objects
+          Read the input file one line at a time, "-" being the standard input, and analyze each TestFile
+          as soon as it is read
          */
-        BufferedReader in = new BufferedReader(new FileReader(args[0]));
+        BufferedReader in = new BufferedReader(standardInput ? new InputStreamReader(System.in) : new FileReader(args[0]));
         String str;
 
         String[] lineItem;
         TestFile testFile;
-        List<TestFile> testFiles = new ArrayList<>();
+        TestFile tempFile;
+        DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
+        Date date;
+
+        JSONObject jsonResult = new JSONObject();
         while ((str = in.readLine()) != null) {
             // use comma as separator
             lineItem = str.split(",");
@@ -50,20 +57,11 @@ public class Main {
                 testFile = new TestFile(lineItem[0], lineItem[1], lineItem[2]);
             }
 
-            testFiles.add(testFile);
-        }
-
-        TestFile tempFile;
-        DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
-        Date date;
-
-        JSONObject jsonResult = new JSONObject();
-        for (TestFile file : testFiles) {
             System.out.println("ciao");
             //detect smells
-            tempFile = testSmellDetector.detectSmells(file);
+            tempFile = testSmellDetector.detectSmells(testFile);
             //write output
-            for (AbstractSmell smell : tempFile.getTestSmells()) {
+            for (SmellResult smell : tempFile.getTestSmells()) {
                 if(smell.hasSmell()){
                     Map<String, Set<String>> result = smell.getResult();
                     JSONObject smellEntry = new JSONObject();
@@ -78,6 +76,7 @@ public class Main {
                 }
             }
         }
+        in.close();
 
     }
 
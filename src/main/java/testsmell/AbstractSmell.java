@@ -4,80 +4,89 @@ import com.github.javaparser.ast.CompilationUnit;
 import thresholds.Thresholds;
 
 import java.io.FileNotFoundException;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
+/**
+ * A test smell. Smells hold no per-file state: everything found in a file is kept by the {@link SmellAnalysis}
+ * started for it, so a single instance can be shared by concurrent analyses.
+ */
 public abstract class AbstractSmell {
-    protected Thresholds thresholds;
-    protected Set<SmellyElement> smellyElementsSet;
-    protected Map<String, Set<String>> result;
-    protected Map<String, Integer> score;
+    /**
+     * Tokens of which one occurs in any file declaring a test method, as recognized by
+     * {@link Util#isValidTestMethod}
+     */
+    protected static final Set<String> TEST_METHOD_MARKERS = Set.of("test");
+    /**
+     * Tokens of which one occurs in any file declaring a setup method, as recognized by
+     * {@link Util#isValidSetupMethod}
+     */
+    protected static final Set<String> SETUP_METHOD_MARKERS = Set.of("before", "setup");
+
+    protected final Thresholds thresholds;
 
     public AbstractSmell(Thresholds thresholds) {
         this.thresholds = thresholds;
-        this.smellyElementsSet = new HashSet<>();
-        this.result = new HashMap<>();
-        this.score = new HashMap<>();
     }
 
-    public Map<String,Set<String>> getResult(){
-        return this.result;
-    }
+    public abstract String getSmellName();
 
-    public Map<String, Integer> getScore() {
-        return score;
-    }
+    /**
+     * Starts the detection of the smell in a test file
+     */
+    public abstract SmellAnalysis newAnalysis(String testFileName, String productionFileName);
 
-    public void putSmellyElement(String element) {
-        if(result.containsKey(this.getSmellName())){
-            Set<String> list = result.get(this.getSmellName());
-            list.add(element);
-            this.result.put(this.getSmellName(),list);
-        } else {
-            Set<String> list = new HashSet<>();
-            list.add(element);
-            this.result.put(this.getSmellName(),list);
-        }
+    /**
+     * Returns a new collector of the facts the smell needs to know about the production file, or null if the smell
+     * only looks at the test file. The facts are given to each analysis by
+     * {@link SmellAnalysis#setProductionFacts}, and a smell with a collector cannot be detected without a production
+     * file.
+     */
+    public ProductionFacts.Collector newProductionFactsCollector() {
+        return null;
     }
 
-    public void addScore(Integer point){
-        if(score.containsKey(this.getSmellName())){
-            Integer points = score.get(this.getSmellName());
-            points+= point;
-            this.score.put(this.getSmellName(),points);
-        } else{
-            this.score.put(this.getSmellName(),point);
-        }
+    /**
+     * Tells whether the smell resolves the symbols of the test file, through the
+     * {@link TestFileContext#getResolutions() resolutions} of its context. Such a smell falls back to the syntax
+     * where they cannot be resolved.
+     */
+    public boolean resolvesSymbols() {
+        return false;
     }
 
-    public abstract String getSmellName();
-
     /**
-     * Return 1 if any of the elements has a smell; 0 otherwise
+     * Returns the tokens a test file must contain for the smell to be found there: at least one token of each group,
+     * matched ignoring case as a {@link TokenScanner} does. A file missing a group gets an empty result without being
+     * walked. By default the smell can be found in any file.
      */
-    public boolean hasSmell() {
-        return smellyElementsSet.stream().filter(SmellyElement::isSmelly).count() >= 1;
+    public List<Set<String>> getTriggers() {
+        return Collections.emptyList();
     }
 
-    public abstract void runAnalysis(CompilationUnit testFileCompilationUnit,
-                                     CompilationUnit productionFileCompilationUnit,
-                                     String testFileName,
-                                     String productionFileName) throws FileNotFoundException;
-
     /**
-     * Returns the set of analyzed elements (i.e. test methods)
+     * Tells whether a file containing the given tokens, in lower case, can have the smell
      */
-    public Set<SmellyElement> getSmellyElements() {
-        return smellyElementsSet;
+    public boolean isTriggeredBy(Set<String> tokens) {
+        for (Set<String> group : getTriggers()) {
+            if (group.stream().noneMatch(tokens::contains))
+                return false;
+        }
+        return true;
     }
 
     /**
-     * Returns the number of test cases in a test suite (jUnit test file).
-     * In theory, it counts all the smelly elements (i.e., the methods), that are smelly
+     * Detects this smell alone in the given files
      */
-    public int getNumberOfSmellyTests() {
-        return (int) smellyElementsSet.stream().filter(SmellyElement::isSmelly).count();
+    public SmellResult runAnalysis(CompilationUnit testFileCompilationUnit,
+                                   CompilationUnit productionFileCompilationUnit,
+                                   String testFileName,
+                                   String productionFileName) throws FileNotFoundException {
+        SmellResult result = FusedVisitor.analyze(Collections.singletonList(this), testFileCompilationUnit,
+                productionFileCompilationUnit, testFileName, productionFileName).get(0);
+        if (result == null)
+            throw new FileNotFoundException();
+        return result;
     }
 }
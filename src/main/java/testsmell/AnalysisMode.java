@@ -0,0 +1,63 @@
+package testsmell;
+
+/**
+ * How deep the detection looks at the files, trading precision for speed.
+ * <ul>
+ *     <li>{@link #FAST} only parses the test file: no symbol is resolved and the production file is not read, so the
+ *     smells needing it are not computed;</li>
+ *     <li>{@link #STANDARD} also collects the facts of the production file and resolves the symbols of the test file
+ *     against the JRE and the directories of the two files;</li>
+ *     <li>{@link #DEEP} resolves them against the jars of a classpath as well.</li>
+ * </ul>
+ */
+public enum AnalysisMode {
+    FAST(false, false),
+    STANDARD(true, true),
+    DEEP(true, true);
+
+    /**
+     * How a smell has been computed
+     */
+    public enum Precision {
+        /**
+         * The smell needs the production file, which has not been read
+         */
+        NOT_COMPUTED,
+        /**
+         * The smell has been told from the syntax of the test file
+         */
+        SYNTACTIC,
+        /**
+         * The smell has been told from the syntax of the test file and from the symbols resolved there
+         */
+        SEMANTIC
+    }
+
+    private final boolean resolvesSymbols;
+    private final boolean readsProductionFile;
+
+    AnalysisMode(boolean resolvesSymbols, boolean readsProductionFile) {
+        this.resolvesSymbols = resolvesSymbols;
+        this.readsProductionFile = readsProductionFile;
+    }
+
+    public boolean resolvesSymbols() {
+        return resolvesSymbols;
+    }
+
+    public boolean readsProductionFile() {
+        return readsProductionFile;
+    }
+
+    /**
+     * Returns how the smell is computed in this mode. A semantic smell can still fall back to the syntax in the
+     * files whose resolution budget has been used up.
+     */
+    public Precision precisionOf(AbstractSmell smell) {
+        if (!readsProductionFile && smell.newProductionFactsCollector() != null)
+            return Precision.NOT_COMPUTED;
+        if (resolvesSymbols && smell.resolvesSymbols())
+            return Precision.SEMANTIC;
+        return Precision.SYNTACTIC;
+    }
+}
@@ -0,0 +1,218 @@
+package testsmell;
+
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A call to a JUnit assertion, or to fail, recognized from its name through a table of the assertion names. The
+ * variants of the assertions comparing two values (e.g. assertEqualsNoOrder) belong to the family of the assertion
+ * they start with. The arguments are read following the JUnit 4 overloads, whose message comes first.
+ */
+public final class Assertion {
+
+    public enum Family {
+        EQUALS(3, true, "assertEquals", "assertNotEquals", "assertArrayEquals"),
+        SAME(3, true, "assertSame", "assertNotSame"),
+        THAT(3, true, "assertThat"),
+        THROWS(3, true, "assertThrows"),
+        CONDITION(2, false, "assertTrue", "assertFalse"),
+        NULL(2, false, "assertNull", "assertNotNull"),
+        FAIL(1, false, "fail");
+
+        private final int messageArity;
+        private final boolean hasVariants;
+        private final List<String> names;
+
+        Family(int messageArity, boolean hasVariants, String... names) {
+            this.messageArity = messageArity;
+            this.hasVariants = hasVariants;
+            this.names = Collections.unmodifiableList(Arrays.asList(names));
+        }
+
+        /**
+         * Returns the number of arguments of the overload taking a message
+         */
+        public int getMessageArity() {
+            return messageArity;
+        }
+    }
+
+    private static final Map<String, Family> FAMILIES = new HashMap<>();
+    /**
+     * The assertion names that variants can start with
+     */
+    private static final List<String> VARIANT_BASES = new ArrayList<>();
+
+    static {
+        for (Family family : Family.values()) {
+            for (String name : family.names) {
+                FAMILIES.put(name, family);
+                if (family.hasVariants)
+                    VARIANT_BASES.add(name);
+            }
+        }
+    }
+
+    private final MethodCallExpr call;
+    private final String baseName;
+    private final Family family;
+    private final boolean exact;
+    private final ResolutionCache resolutions;
+    private Boolean hasMessage;
+
+    private Assertion(MethodCallExpr call, String baseName, ResolutionCache resolutions) {
+        this.call = call;
+        this.resolutions = resolutions;
+        this.baseName = baseName;
+        this.family = FAMILIES.get(baseName);
+        this.exact = baseName.equals(call.getNameAsString());
+    }
+
+    /**
+     * Returns the assertion made by the call, or null if it is not an assertion. The types it needs are resolved
+     * through the given resolutions.
+     */
+    public static Assertion of(MethodCallExpr call, ResolutionCache resolutions) {
+        String baseName = baseNameOf(call.getNameAsString());
+        return baseName == null ? null : new Assertion(call, baseName, resolutions);
+    }
+
+    /**
+     * Returns the name of the assertion the method name is, or is a variant of, or null if it is none
+     */
+    static String baseNameOf(String name) {
+        if (FAMILIES.containsKey(name))
+            return name;
+        if (!name.startsWith("assert"))
+            return null;
+        for (String base : VARIANT_BASES) {
+            if (name.startsWith(base))
+                return base;
+        }
+        return null;
+    }
+
+    public MethodCallExpr getCall() {
+        return call;
+    }
+
+    /**
+     * Returns the name of the JUnit assertion, which the name of the call starts with
+     */
+    public String getBaseName() {
+        return baseName;
+    }
+
+    public Family getFamily() {
+        return family;
+    }
+
+    /**
+     * Tells whether the call is the JUnit assertion itself rather than a variant of it
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    public int getArity() {
+        return call.getArguments().size();
+    }
+
+    /**
+     * Tells whether the first argument is a message. With three arguments, an {@link Family#EQUALS} assertion takes
+     * a message only if its first argument is a string, which may have to be resolved; the answer is kept.
+     */
+    public boolean hasMessage() {
+        if (hasMessage == null) {
+            int arity = getArity();
+            if (family == Family.EQUALS && arity == family.messageArity) {
+                hasMessage = isString(call.getArgument(0));
+            } else {
+                hasMessage = arity >= family.messageArity;
+            }
+        }
+        return hasMessage;
+    }
+
+    private boolean isString(Expression argument) {
+        if (argument.isStringLiteralExpr())
+            return true;
+        ResolvedType type = resolutions.typeOf(argument);
+        if (type == null && resolutions.isExhausted())
+            return isStringConcatenation(argument);
+        return type != null && type.isReferenceType()
+                && type.asReferenceType().getQualifiedName().equals("java.lang.String");
+    }
+
+    /**
+     * Tells from the syntax alone whether the expression adds a string literal to something, once the types can no
+     * longer be resolved
+     */
+    private static boolean isStringConcatenation(Expression expression) {
+        if (expression.isEnclosedExpr())
+            return isStringConcatenation(expression.asEnclosedExpr().getInner());
+        if (expression.isStringLiteralExpr() || expression.isTextBlockLiteralExpr())
+            return true;
+        if (expression.isBinaryExpr() && expression.asBinaryExpr().getOperator() == BinaryExpr.Operator.PLUS)
+            return isStringConcatenation(expression.asBinaryExpr().getLeft())
+                    || isStringConcatenation(expression.asBinaryExpr().getRight());
+        return false;
+    }
+
+    /**
+     * Returns the message, or null if the assertion has none
+     */
+    public Expression getMessage() {
+        return hasMessage() ? call.getArgument(0) : null;
+    }
+
+    /**
+     * Returns the value under test: the actual value of a comparison, or the checked condition or object. Failures
+     * and assertThrows have none.
+     */
+    public Expression getObserved() {
+        List<Expression> args = call.getArguments();
+        switch (family) {
+            case EQUALS:
+            case SAME:
+                if (args.size() == 2) return args.get(1);
+                if (args.size() == 3) return hasMessage() ? args.get(2) : args.get(1);
+                return args.size() >= 4 ? args.get(2) : null;
+            case CONDITION:
+            case NULL:
+                return args.size() == 1 ? args.get(0) : (args.size() >= 2 ? args.get(1) : null);
+            case THAT:
+                return args.size() >= 3 ? args.get(1) : (args.isEmpty() ? null : args.get(0));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns what the value under test is compared with: the expected value, or the matcher of assertThat.
+     * The other assertions have none.
+     */
+    public Expression getExpected() {
+        List<Expression> args = call.getArguments();
+        switch (family) {
+            case EQUALS:
+            case SAME:
+                if (args.size() == 2) return args.get(0);
+                if (args.size() == 3) return hasMessage() ? args.get(1) : args.get(0);
+                return args.size() >= 4 ? args.get(1) : null;
+            case THAT:
+                return args.size() >= 3 ? args.get(2) : (args.size() == 2 ? args.get(1) : null);
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package testsmell;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resolves the types found in the jars of a classpath. Every test file gets its own view of them through
+ * {@link #newTypeSolver()}, since a type solver belongs to a single parent.
+ * <p>
+ * The types of the jars only refer to each other and to the JRE, so they are resolved apart from the sources of the
+ * test files. The jar solvers are not thread-safe: rather than reading the jars one thread at a time, each thread
+ * indexes them once and keeps its own solvers, the memory they take growing with the number of threads.
+ */
+public class ClasspathTypeSolver {
+
+    private final List<Path> jarPaths;
+    private final ThreadLocal<CombinedTypeSolver> jars;
+
+    public ClasspathTypeSolver(List<Path> jarPaths) throws IOException {
+        this.jarPaths = new ArrayList<>(jarPaths);
+        // the jars are indexed once here, so that a jar that cannot be read is reported before the run starts
+        CombinedTypeSolver first = newJars();
+        this.jars = ThreadLocal.withInitial(() -> {
+            try {
+                return newJars();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        this.jars.set(first);
+    }
+
+    private CombinedTypeSolver newJars() throws IOException {
+        CombinedTypeSolver solver = new CombinedTypeSolver();
+        solver.add(new ReflectionTypeSolver(false));
+        for (Path jarPath : jarPaths) {
+            solver.add(new JarTypeSolver(jarPath));
+        }
+        return solver;
+    }
+
+    /**
+     * Creates a type solver for a test file, backed by the jars indexed by the thread resolving its types
+     */
+    public TypeSolver newTypeSolver() {
+        return new View();
+    }
+
+    private class View implements TypeSolver {
+        private TypeSolver parent;
+
+        @Override
+        public TypeSolver getParent() {
+            return parent;
+        }
+
+        @Override
+        public void setParent(TypeSolver parent) {
+            if (this.parent != null)
+                throw new IllegalStateException("This TypeSolver already has a parent.");
+            this.parent = parent;
+        }
+
+        @Override
+        public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+            return jars.get().tryToSolveType(name);
+        }
+    }
+}
@@ -1,13 +1,19 @@
 package testsmell;
 
-import java.io.FileWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.List;
 
-public class CustomResultsWriter{
+/**
+ * Appends lines to the output file, which stays open until the writer is closed
+ */
+public class CustomResultsWriter implements Closeable {
 
     private String outputFile;
-    private FileWriter writer;
+    private Writer writer;
 
     public static CustomResultsWriter createResultsWriter() throws IOException {
         return new CustomResultsWriter();
@@ -18,7 +24,8 @@ public class CustomResultsWriter{
     }
 
     private void writeOutput(List<String> dataValues)throws IOException {
-        writer = new FileWriter(outputFile,true);
+        if (writer == null)
+            writer = new OutputStreamWriter(new PeriodicFlushOutputStream(new FileOutputStream(outputFile, true)));
 
         for (int i=0; i<dataValues.size(); i++) {
             writer.append(String.valueOf(dataValues.get(i)));
@@ -30,8 +37,11 @@ public class CustomResultsWriter{
 
         }
         writer.flush();
-        writer.close();
     }
 
-
-}
\ No newline at end of file
+    @Override
+    public void close() throws IOException {
+        if (writer != null)
+            writer.close();
+    }
+}
@@ -0,0 +1,348 @@
+package testsmell;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.*;
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.stmt.*;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Walks a compilation unit once and sends each node to all the {@link SmellVisitor}s interested in its type.
+ * The children of each node are walked in the same order as {@link VoidVisitorAdapter} does, so a smell sees the
+ * nodes exactly as it would with a visitor of its own.
+ */
+public class FusedVisitor extends VoidVisitorAdapter<Void> {
+
+    private static final List<Class<? extends Node>> NODE_TYPES = Arrays.asList(
+            ClassOrInterfaceDeclaration.class, EnumDeclaration.class, ConstructorDeclaration.class,
+            MethodDeclaration.class, FieldDeclaration.class, VariableDeclarator.class,
+            VariableDeclarationExpr.class, AssignExpr.class, MethodCallExpr.class, NameExpr.class,
+            FieldAccessExpr.class, ObjectCreationExpr.class, ConditionalExpr.class, IfStmt.class,
+            SwitchStmt.class, ForStmt.class, ForEachStmt.class, WhileStmt.class, ThrowStmt.class,
+            CatchClause.class);
+
+    private static final int CLASS = 0, ENUM = 1, CONSTRUCTOR = 2, METHOD = 3, FIELD = 4, VARIABLE = 5,
+            VARIABLE_DECLARATION = 6, ASSIGN = 7, METHOD_CALL = 8, NAME = 9, FIELD_ACCESS = 10,
+            OBJECT_CREATION = 11, CONDITIONAL = 12, IF = 13, SWITCH = 14, FOR = 15, FOREACH = 16, WHILE = 17,
+            THROW = 18, CATCH = 19;
+
+    /**
+     * The node types whose callbacks are overridden by each class of visitor
+     */
+    private static final ClassValue<boolean[]> INTERESTS = new ClassValue<boolean[]>() {
+        @Override
+        protected boolean[] computeValue(Class<?> type) {
+            boolean[] interests = new boolean[NODE_TYPES.size()];
+            for (Method method : type.getMethods()) {
+                if (method.getDeclaringClass() != SmellVisitor.class && method.getParameterCount() == 1
+                        && (method.getName().equals("visit") || method.getName().equals("leave"))) {
+                    int kind = NODE_TYPES.indexOf(method.getParameterTypes()[0]);
+                    if (kind >= 0)
+                        interests[kind] = true;
+                }
+            }
+            return interests;
+        }
+    };
+
+    private final SmellVisitor[] visitors;
+    private final int[][] interested;
+    private final Node[] prunedAt;
+
+    public FusedVisitor(List<? extends SmellVisitor> visitors) {
+        this.visitors = visitors.toArray(new SmellVisitor[0]);
+        this.prunedAt = new Node[this.visitors.length];
+        this.interested = new int[NODE_TYPES.size()][];
+        for (int kind = 0; kind < NODE_TYPES.size(); kind++) {
+            List<Integer> indexes = new ArrayList<>();
+            for (int i = 0; i < this.visitors.length; i++) {
+                if (INTERESTS.get(this.visitors[i].getClass())[kind])
+                    indexes.add(i);
+            }
+            interested[kind] = indexes.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Detects the given smells walking the production file and then the test file, each only once.
+     * The smells that need the production file are left out when it is missing.
+     *
+     * @return the result of each smell, in the same order, or null for the smells that have been left out
+     */
+    public static List<SmellResult> analyze(List<? extends AbstractSmell> smells,
+                                            CompilationUnit testFileCompilationUnit,
+                                            CompilationUnit productionFileCompilationUnit,
+                                            String testFileName,
+                                            String productionFileName) {
+        return analyze(smells, testFileCompilationUnit, productionFileCompilationUnit, testFileName,
+                productionFileName, null);
+    }
+
+    /**
+     * Like {@link #analyze(List, CompilationUnit, CompilationUnit, String, String)}, knowing the tokens of the test
+     * file found by a {@link TokenScanner}: the smells they do not trigger get an empty result without walking the
+     * files. All the smells are walked when the tokens are null.
+     */
+    public static List<SmellResult> analyze(List<? extends AbstractSmell> smells,
+                                            CompilationUnit testFileCompilationUnit,
+                                            CompilationUnit productionFileCompilationUnit,
+                                            String testFileName,
+                                            String productionFileName,
+                                            Set<String> testFileTokens) {
+        Map<Class<?>, ProductionFacts> productionFacts = null;
+        if (productionFileCompilationUnit != null) {
+            List<ProductionFacts.Collector> collectors = new ArrayList<>();
+            for (AbstractSmell smell : smells) {
+                ProductionFacts.Collector collector = smell.newProductionFactsCollector();
+                if (collector != null)
+                    collectors.add(collector);
+            }
+            productionFacts = ProductionFacts.collect(collectors, productionFileCompilationUnit);
+        }
+        return analyze(smells, testFileCompilationUnit, productionFacts, testFileName, productionFileName,
+                testFileTokens);
+    }
+
+    /**
+     * Detects the given smells walking the test file once, knowing the facts collected from the production file,
+     * keyed by the class of their collector, and the tokens of the test file. The smells they do not trigger get an
+     * empty result without walking the file, so the facts of the production file are needed only for the triggered
+     * smells. The smells needing facts that are missing are left out.
+     *
+     * @return the result of each smell, in the same order, or null for the smells that have been left out
+     */
+    public static List<SmellResult> analyze(List<? extends AbstractSmell> smells,
+                                            CompilationUnit testFileCompilationUnit,
+                                            Map<Class<?>, ProductionFacts> productionFacts,
+                                            String testFileName,
+                                            String productionFileName,
+                                            Set<String> testFileTokens) {
+        return analyze(smells, testFileCompilationUnit, productionFacts, testFileName, productionFileName,
+                testFileTokens, new TestFileContext());
+    }
+
+    /**
+     * Like {@link #analyze(List, CompilationUnit, Map, String, String, Set)}, sharing the given context between the
+     * analyses, so that the caller can tell afterwards how the symbols of the file have been resolved
+     */
+    public static List<SmellResult> analyze(List<? extends AbstractSmell> smells,
+                                            CompilationUnit testFileCompilationUnit,
+                                            Map<Class<?>, ProductionFacts> productionFacts,
+                                            String testFileName,
+                                            String productionFileName,
+                                            Set<String> testFileTokens,
+                                            TestFileContext context) {
+        List<SmellAnalysis> analyses = new ArrayList<>();
+        List<SmellVisitor> testFileVisitors = new ArrayList<>();
+        for (AbstractSmell smell : smells) {
+            SmellAnalysis analysis = smell.newAnalysis(testFileName, productionFileName);
+            if (testFileTokens != null && !smell.isTriggeredBy(testFileTokens)) {
+                analyses.add(analysis);
+                continue;
+            }
+            ProductionFacts.Collector collector = smell.newProductionFactsCollector();
+            if (collector != null) {
+                ProductionFacts facts = productionFacts == null ? null : productionFacts.get(collector.getClass());
+                if (facts == null) {
+                    analyses.add(null);
+                    continue;
+                }
+                analysis.setProductionFacts(facts);
+            }
+            analysis.setTestFileContext(context);
+            analyses.add(analysis);
+            testFileVisitors.add(analysis);
+        }
+        if (!testFileVisitors.isEmpty())
+            new FusedVisitor(testFileVisitors).walk(testFileCompilationUnit);
+
+        List<SmellResult> results = new ArrayList<>();
+        for (int i = 0; i < analyses.size(); i++) {
+            SmellAnalysis analysis = analyses.get(i);
+            results.add(analysis == null ? null : analysis.getResult(smells.get(i).getSmellName()));
+        }
+        return results;
+    }
+
+    /**
+     * Walks the compilation unit and then tells every visitor that the walk is over
+     */
+    public void walk(CompilationUnit compilationUnit) {
+        visit(compilationUnit, null);
+        for (SmellVisitor visitor : visitors) {
+            visitor.end();
+        }
+    }
+
+    private interface Enter<T extends Node> {
+        boolean visit(SmellVisitor visitor, T n);
+    }
+
+    private interface Leave<T extends Node> {
+        void leave(SmellVisitor visitor, T n);
+    }
+
+    private <T extends Node> void enter(int kind, T n, Enter<T> callback) {
+        for (int i : interested[kind]) {
+            if (prunedAt[i] == null && !callback.visit(visitors[i], n))
+                prunedAt[i] = n;
+        }
+    }
+
+    private <T extends Node> void leave(int kind, T n, Leave<T> callback) {
+        for (int i : interested[kind]) {
+            if (prunedAt[i] == null)
+                callback.leave(visitors[i], n);
+            else if (prunedAt[i] == n)
+                prunedAt[i] = null;
+        }
+    }
+
+    @Override
+    public void visit(ClassOrInterfaceDeclaration n, Void arg) {
+        enter(CLASS, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(CLASS, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(EnumDeclaration n, Void arg) {
+        enter(ENUM, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(ENUM, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(ConstructorDeclaration n, Void arg) {
+        enter(CONSTRUCTOR, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(CONSTRUCTOR, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(MethodDeclaration n, Void arg) {
+        enter(METHOD, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(METHOD, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(FieldDeclaration n, Void arg) {
+        enter(FIELD, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(FIELD, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(VariableDeclarator n, Void arg) {
+        enter(VARIABLE, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(VARIABLE, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(VariableDeclarationExpr n, Void arg) {
+        enter(VARIABLE_DECLARATION, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(VARIABLE_DECLARATION, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(AssignExpr n, Void arg) {
+        enter(ASSIGN, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(ASSIGN, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(MethodCallExpr n, Void arg) {
+        enter(METHOD_CALL, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(METHOD_CALL, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(NameExpr n, Void arg) {
+        enter(NAME, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(NAME, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(FieldAccessExpr n, Void arg) {
+        enter(FIELD_ACCESS, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(FIELD_ACCESS, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(ObjectCreationExpr n, Void arg) {
+        enter(OBJECT_CREATION, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(OBJECT_CREATION, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(ConditionalExpr n, Void arg) {
+        enter(CONDITIONAL, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(CONDITIONAL, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(IfStmt n, Void arg) {
+        enter(IF, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(IF, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(SwitchStmt n, Void arg) {
+        enter(SWITCH, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(SWITCH, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(ForStmt n, Void arg) {
+        enter(FOR, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(FOR, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(ForEachStmt n, Void arg) {
+        enter(FOREACH, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(FOREACH, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(WhileStmt n, Void arg) {
+        enter(WHILE, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(WHILE, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(ThrowStmt n, Void arg) {
+        enter(THROW, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(THROW, n, SmellVisitor::leave);
+    }
+
+    @Override
+    public void visit(CatchClause n, Void arg) {
+        enter(CATCH, n, SmellVisitor::visit);
+        super.visit(n, arg);
+        leave(CATCH, n, SmellVisitor::leave);
+    }
+}
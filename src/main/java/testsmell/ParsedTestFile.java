@@ -0,0 +1,46 @@
+package testsmell;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A test file whose sources have been parsed and can be analyzed. Of the production file, only the facts collected
+ * for the smells are kept, keyed by the class of their {@link ProductionFacts.Collector}: they are null when the test
+ * file has no production file, and miss the smells not triggered by the test file. The tokens found in the test
+ * source, if it has been scanned, tell which smells can be found there.
+ */
+public class ParsedTestFile {
+    private final TestFile testFile;
+    private final CompilationUnit testFileCompilationUnit;
+    private final Map<Class<?>, ProductionFacts> productionFacts;
+    private final Set<String> testFileTokens;
+
+    public ParsedTestFile(TestFile testFile, CompilationUnit testFileCompilationUnit,
+                          Map<Class<?>, ProductionFacts> productionFacts, Set<String> testFileTokens) {
+        this.testFile = testFile;
+        this.testFileCompilationUnit = testFileCompilationUnit;
+        this.productionFacts = productionFacts;
+        this.testFileTokens = testFileTokens;
+    }
+
+    public TestFile getTestFile() {
+        return testFile;
+    }
+
+    public CompilationUnit getTestFileCompilationUnit() {
+        return testFileCompilationUnit;
+    }
+
+    public Map<Class<?>, ProductionFacts> getProductionFacts() {
+        return productionFacts;
+    }
+
+    /**
+     * Returns the tokens found in the test source, or null if it has not been scanned
+     */
+    public Set<String> getTestFileTokens() {
+        return testFileTokens;
+    }
+}
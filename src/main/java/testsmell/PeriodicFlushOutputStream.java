@@ -0,0 +1,53 @@
+package testsmell;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers an output kept open for a whole run. The buffer is written once it is full, while a flush only writes
+ * it if {@code flushIntervalMillis} have passed since the last time, so that writers flushing after every line
+ * don't hit the file system for each of them. Closing the stream always writes what is left.
+ */
+public class PeriodicFlushOutputStream extends BufferedOutputStream {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+    private final long flushIntervalNanos;
+    private long lastFlush;
+
+    public PeriodicFlushOutputStream(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    public PeriodicFlushOutputStream(OutputStream out, int bufferSize, long flushIntervalMillis) {
+        super(out, bufferSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.lastFlush = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (System.nanoTime() - lastFlush >= flushIntervalNanos)
+            forceFlush();
+    }
+
+    /**
+     * Writes the buffer to the file whatever the time of the last flush
+     */
+    public synchronized void forceFlush() throws IOException {
+        super.flush();
+        lastFlush = System.nanoTime();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            forceFlush();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package testsmell;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * What a smell knows about a production file: the name of its class and the name and arity of the methods it can
+ * call. The facts keep no reference to the syntax tree, so they can be shared by all the test files paired with the
+ * same production file.
+ */
+public final class ProductionFacts {
+    private final String className;
+    private final List<MethodSignature> methods;
+    /**
+     * The distinct signatures of {@link #methods}, so that a call is matched by a hash lookup
+     */
+    private final Set<MethodSignature> signatures;
+
+    private ProductionFacts(String className, List<MethodSignature> methods) {
+        this.className = className;
+        this.methods = Collections.unmodifiableList(methods);
+        this.signatures = new HashSet<>(methods);
+    }
+
+    /**
+     * Returns the name of the production class, or null if the file declares none
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    public List<MethodSignature> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Tells whether the production class has a method with the given name and number of parameters
+     */
+    public boolean hasMethod(String name, int arity) {
+        return signatures.contains(new MethodSignature(name, arity));
+    }
+
+    /**
+     * Returns an estimate of the memory taken by the facts, in number of strings
+     */
+    public int getWeight() {
+        return 1 + methods.size() + signatures.size();
+    }
+
+    /**
+     * Walks a production file once with the given collectors and returns their facts, keyed by the class of the
+     * collector
+     */
+    public static Map<Class<?>, ProductionFacts> collect(List<? extends Collector> collectors,
+                                                         CompilationUnit productionFileCompilationUnit) {
+        new FusedVisitor(collectors).walk(productionFileCompilationUnit);
+        Map<Class<?>, ProductionFacts> facts = new HashMap<>();
+        for (Collector collector : collectors) {
+            facts.put(collector.getClass(), new ProductionFacts(collector.className, collector.methods));
+        }
+        return facts;
+    }
+
+    public static final class MethodSignature {
+        private final String name;
+        private final int arity;
+
+        public MethodSignature(String name, int arity) {
+            this.name = name;
+            this.arity = arity;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getArity() {
+            return arity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MethodSignature)) return false;
+            MethodSignature that = (MethodSignature) o;
+            return arity == that.arity && name.equals(that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, arity);
+        }
+    }
+
+    /**
+     * Visits a production file to collect the facts a smell needs. Collectors of the same class must collect the
+     * same facts from the same file, as their facts are shared.
+     */
+    public abstract static class Collector implements SmellVisitor {
+        private String className;
+        private final List<MethodSignature> methods = new ArrayList<>();
+
+        protected void setClassName(String className) {
+            this.className = className;
+        }
+
+        protected void addMethod(MethodDeclaration method) {
+            methods.add(new MethodSignature(method.getNameAsString(), method.getParameters().size()));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package testsmell;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the facts collected from the production files for the whole run, so that a production file paired with
+ * several test files is parsed once. A file is known by its path, modification time and size, so a file changed
+ * during the run is parsed again. Once the facts weigh more than {@code maximumWeight}, the least recently used
+ * ones are evicted.
+ */
+public class ProductionFactsCache {
+
+    /**
+     * Parses the production file, when its facts are not known yet
+     */
+    public interface Parser {
+        CompilationUnit parse() throws IOException;
+    }
+
+    private final Cache<Key, ProductionFacts> facts;
+
+    public ProductionFactsCache(long maximumWeight) {
+        this.facts = CacheBuilder.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((Key key, ProductionFacts value) -> value.getWeight())
+                .build();
+    }
+
+    /**
+     * Returns the facts collected by the given collectors from the production file, keyed by the class of the
+     * collector. The file is parsed only if some of them are not known
+     */
+    public Map<Class<?>, ProductionFacts> getFacts(Path path, List<? extends ProductionFacts.Collector> collectors,
+                                                   Parser parser) throws IOException {
+        Map<Class<?>, ProductionFacts> known = new HashMap<>();
+        if (collectors.isEmpty())
+            return known;
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        Path absolutePath = path.toAbsolutePath().normalize();
+        List<ProductionFacts.Collector> missing = new ArrayList<>();
+        for (ProductionFacts.Collector collector : collectors) {
+            ProductionFacts cached = facts.getIfPresent(new Key(absolutePath, attributes, collector.getClass()));
+            if (cached != null) {
+                known.put(collector.getClass(), cached);
+            } else {
+                missing.add(collector);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Class<?>, ProductionFacts> collected = ProductionFacts.collect(missing, parser.parse());
+            collected.forEach((collector, value) -> facts.put(new Key(absolutePath, attributes, collector), value));
+            known.putAll(collected);
+        }
+        return known;
+    }
+
+    private static final class Key {
+        private final Path path;
+        private final long lastModified;
+        private final long size;
+        private final Class<?> collector;
+
+        private Key(Path path, BasicFileAttributes attributes, Class<?> collector) {
+            this.path = path;
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+            this.size = attributes.size();
+            this.collector = collector;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return lastModified == key.lastModified && size == key.size && path.equals(key.path)
+                    && collector == key.collector;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, lastModified, size, collector);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package testsmell;
+
+/**
+ * How much symbol resolution a test file may take: a number of attempts and a time spent resolving. Once either is
+ * used up, the symbols of the file are no longer resolved and the smells fall back to what the syntax tells. An
+ * attempt that has started is never interrupted, so the time can be exceeded by the length of the last attempt.
+ */
+public final class ResolutionBudget {
+    /**
+     * The budget of the detection unless another one is given
+     */
+    public static final ResolutionBudget DEFAULT = new ResolutionBudget(10_000, 10_000);
+    public static final ResolutionBudget UNLIMITED = new ResolutionBudget(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    private final int maxAttempts;
+    private final long maxMillis;
+
+    /**
+     * @param maxAttempts the number of symbols that can be resolved, the failed attempts included
+     * @param maxMillis   the milliseconds that can be spent resolving them
+     */
+    public ResolutionBudget(int maxAttempts, long maxMillis) {
+        if (maxAttempts < 0 || maxMillis < 0)
+            throw new IllegalArgumentException("The resolution budget cannot be negative");
+        this.maxAttempts = maxAttempts;
+        this.maxMillis = maxMillis;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return maxAttempts + " attempts, " + maxMillis + " ms";
+    }
+}
@@ -0,0 +1,193 @@
+package testsmell;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedValueDeclaration;
+import com.github.javaparser.resolution.types.ResolvedType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * The symbol resolutions of a test file, shared by all its smells. A node is resolved at most once. A failure is
+ * also remembered by the kind of lookup and the source of the node within its enclosing method, so the same symbol
+ * written again there is not resolved again only to throw the same exception.
+ * <p>
+ * The resolutions are bounded by a {@link ResolutionBudget}: once it is used up, whatever is not known yet is
+ * reported as unresolved without trying, and {@link #isExhausted()} tells the smells to rely on the syntax.
+ */
+public class ResolutionCache {
+    private static final Logger log = LoggerFactory.getLogger(ResolutionCache.class);
+    private static final Object UNRESOLVED = new Object();
+
+    private final Map<Node, Object> resolved = new IdentityHashMap<>();
+    private final Map<ResolvedMethodDeclaration, Object> returnTypes = new IdentityHashMap<>();
+    private final Set<Failure> failures = new HashSet<>();
+    private final ResolutionBudget budget;
+    private final long maxNanos;
+    private int attempts;
+    private long nanos;
+    private boolean exhausted;
+
+    public ResolutionCache() {
+        this(ResolutionBudget.UNLIMITED);
+    }
+
+    public ResolutionCache(ResolutionBudget budget) {
+        this.budget = budget;
+        this.maxNanos = budget.getMaxMillis() >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE
+                : budget.getMaxMillis() * 1_000_000;
+    }
+
+    /**
+     * Tells whether the budget has been used up, so that some symbols have been left unresolved without trying
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Returns the method the call invokes, or null if it cannot be resolved
+     */
+    public ResolvedMethodDeclaration resolve(MethodCallExpr call) {
+        return lookup(Kind.METHOD, call, call::resolve);
+    }
+
+    /**
+     * Returns the variable or the field the name refers to, or null if it cannot be resolved or the expression is
+     * not a name
+     */
+    public ResolvedValueDeclaration resolveValue(Expression expression) {
+        if (expression.isNameExpr()) {
+            NameExpr name = expression.asNameExpr();
+            return lookup(Kind.VALUE, name, name::resolve);
+        }
+        if (expression.isFieldAccessExpr()) {
+            FieldAccessExpr field = expression.asFieldAccessExpr();
+            return lookup(Kind.VALUE, field, field::resolve);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the type of the expression, or null if it cannot be resolved
+     */
+    public ResolvedType typeOf(Expression expression) {
+        return lookup(Kind.TYPE, expression, expression::calculateResolvedType);
+    }
+
+    /**
+     * Tells whether the method returns void, or returns null if its return type cannot be resolved
+     */
+    public Boolean returnsVoid(ResolvedMethodDeclaration method) {
+        Object known = returnTypes.get(method);
+        if (known == null) {
+            if (!startAttempt())
+                return null;
+            long start = System.nanoTime();
+            try {
+                known = method.getReturnType().isVoid();
+            } catch (RuntimeException | StackOverflowError e) {
+                log.debug("Unresolved return type of {}", method.getName(), e);
+                known = UNRESOLVED;
+            }
+            nanos += System.nanoTime() - start;
+            returnTypes.put(method, known);
+        }
+        return known == UNRESOLVED ? null : (Boolean) known;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(Kind kind, Node node, Supplier<T> resolver) {
+        Object known = resolved.get(node);
+        if (known == null) {
+            Failure failure = new Failure(kind, node);
+            if (failures.contains(failure)) {
+                known = UNRESOLVED;
+            } else {
+                if (!startAttempt())
+                    return null;
+                long start = System.nanoTime();
+                try {
+                    known = resolver.get();
+                } catch (RuntimeException | StackOverflowError e) {
+                    log.debug("Unresolved symbol {}", node, e);
+                }
+                nanos += System.nanoTime() - start;
+                if (known == null) {
+                    known = UNRESOLVED;
+                    failures.add(failure);
+                }
+            }
+            resolved.put(node, known);
+        }
+        return known == UNRESOLVED ? null : (T) known;
+    }
+
+    /**
+     * Counts an attempt, or tells that the budget does not allow it
+     */
+    private boolean startAttempt() {
+        if (!exhausted && (attempts >= budget.getMaxAttempts() || nanos >= maxNanos)) {
+            log.debug("Resolution budget of {} used up", budget);
+            exhausted = true;
+        }
+        if (exhausted)
+            return false;
+        attempts++;
+        return true;
+    }
+
+    private enum Kind {METHOD, VALUE, TYPE}
+
+    /**
+     * A failed lookup, told apart from the others by the source of the node and the method or lambda, or else the
+     * type, it appears in
+     */
+    private static final class Failure {
+        private final Kind kind;
+        private final Node scope;
+        private final String symbol;
+
+        Failure(Kind kind, Node node) {
+            this.kind = kind;
+            this.scope = enclosingScope(node);
+            this.symbol = node.toString();
+        }
+
+        private static Node enclosingScope(Node node) {
+            Node parent = node.getParentNode().orElse(null);
+            while (parent != null && !(parent instanceof CallableDeclaration) && !(parent instanceof LambdaExpr)
+                    && !(parent instanceof TypeDeclaration)) {
+                parent = parent.getParentNode().orElse(null);
+            }
+            return parent;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Failure)) return false;
+            Failure failure = (Failure) o;
+            return kind == failure.kind && scope == failure.scope && symbol.equals(failure.symbol);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, System.identityHashCode(scope), symbol);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package testsmell;
 
-import java.io.FileWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.text.MessageFormat;
 import java.util.Calendar;
 import java.util.List;
@@ -9,12 +12,13 @@ import java.util.Map;
 import java.util.Set;
 
 /**
- * This class is utilized to write output to a CSV file
+ * This class is utilized to write output to a CSV file.
+ * The file stays open until the writer is closed, which writes the lines still buffered.
  */
-public class ResultsWriter {
+public class ResultsWriter implements Closeable {
 
     private String outputFile;
-    private FileWriter writer;
+    private Writer writer;
 
     /**
      * Creates the file into which output it to be written into. Results from each file will be stored in a new file
@@ -22,7 +26,7 @@ public class ResultsWriter {
      */
     private ResultsWriter() throws IOException {
         outputFile = MessageFormat.format("{0}_{1}.{2}", "Output","smell", "txt");
-        writer = new FileWriter(outputFile,false);
+        writer = new OutputStreamWriter(new PeriodicFlushOutputStream(new FileOutputStream(outputFile, false)));
     }
 
     /**
@@ -35,7 +39,6 @@ public class ResultsWriter {
     }
 
     public void writeResultOutput(Map<String, Set<String>> result) throws IOException {
-        writer = new FileWriter(outputFile,true);
         for(String key : result.keySet()){
             writer.append(key + System.lineSeparator());
             for(String values: result.get(key)){
@@ -44,7 +47,6 @@ public class ResultsWriter {
             writer.append(System.lineSeparator());
         }
         writer.flush();
-        writer.close();
     }
 
 
@@ -75,8 +77,6 @@ public class ResultsWriter {
      */
 
     private void customWriteOutput(List<String> dataValues)throws IOException {
-        writer = new FileWriter(outputFile,true);
-
         for (int i=0; i<dataValues.size(); i++) {
             writer.append(String.valueOf(dataValues.get(i)));
 
@@ -95,12 +95,9 @@ public class ResultsWriter {
 
         }
         writer.flush();
-        writer.close();
     }
 
     private void writeOutput(List<String> dataValues)throws IOException {
-        writer = new FileWriter(outputFile,true);
-
         for (int i=0; i<dataValues.size(); i++) {
             writer.append(String.valueOf(dataValues.get(i)));
 
@@ -111,6 +108,10 @@ public class ResultsWriter {
 
         }
         writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
         writer.close();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,55 @@
+package testsmell;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The detection of a smell in one test file. It is the visitor of the test file and keeps everything found there,
+ * so that the smell itself holds no per-file state and can analyze any number of files at the same time.
+ */
+public abstract class SmellAnalysis implements SmellVisitor {
+    protected final Set<SmellyElement> smellyElementsSet = new HashSet<>();
+    /**
+     * The facts of the test file shared with the other analyses of the file
+     */
+    protected TestFileContext context;
+    private Set<String> smellyElementNames;
+    private Integer score;
+
+    public void putSmellyElement(String element) {
+        if (smellyElementNames == null)
+            smellyElementNames = new HashSet<>();
+        smellyElementNames.add(element);
+    }
+
+    public void addScore(Integer point) {
+        score = score == null ? point : score + point;
+    }
+
+    /**
+     * Receives the context shared by all the analyses of the test file, before it is walked
+     */
+    public void setTestFileContext(TestFileContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Receives the facts collected from the production file by the collector of the smell, before the test file is
+     * walked. It is only called for the smells having a {@link AbstractSmell#newProductionFactsCollector collector}.
+     */
+    public void setProductionFacts(ProductionFacts facts) {
+    }
+
+    /**
+     * Returns what has been found, once the files have been walked
+     */
+    public SmellResult getResult(String smellName) {
+        Map<String, Set<String>> result = smellyElementNames == null ? Collections.emptyMap()
+                : Collections.singletonMap(smellName, Collections.unmodifiableSet(smellyElementNames));
+        Map<String, Integer> scores = score == null ? Collections.emptyMap()
+                : Collections.singletonMap(smellName, score);
+        return new SmellResult(smellName, Collections.unmodifiableSet(smellyElementsSet), result, scores);
+    }
+}
@@ -0,0 +1,59 @@
+package testsmell;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What a smell has found in a test file. The maps and sets it holds cannot be modified.
+ */
+public final class SmellResult {
+    private final String smellName;
+    private final Set<SmellyElement> smellyElements;
+    private final Map<String, Set<String>> result;
+    private final Map<String, Integer> score;
+
+    public SmellResult(String smellName, Set<SmellyElement> smellyElements,
+                       Map<String, Set<String>> result, Map<String, Integer> score) {
+        this.smellName = smellName;
+        this.smellyElements = smellyElements;
+        this.result = result;
+        this.score = score;
+    }
+
+    public String getSmellName() {
+        return smellName;
+    }
+
+    /**
+     * Returns the names of the smelly elements, keyed by the smell name
+     */
+    public Map<String, Set<String>> getResult() {
+        return result;
+    }
+
+    public Map<String, Integer> getScore() {
+        return score;
+    }
+
+    /**
+     * Return 1 if any of the elements has a smell; 0 otherwise
+     */
+    public boolean hasSmell() {
+        return smellyElements.stream().anyMatch(SmellyElement::isSmelly);
+    }
+
+    /**
+     * Returns the set of analyzed elements (i.e. test methods)
+     */
+    public Set<SmellyElement> getSmellyElements() {
+        return smellyElements;
+    }
+
+    /**
+     * Returns the number of test cases in a test suite (jUnit test file).
+     * In theory, it counts all the smelly elements (i.e., the methods), that are smelly
+     */
+    public int getNumberOfSmellyTests() {
+        return (int) smellyElements.stream().filter(SmellyElement::isSmelly).count();
+    }
+}
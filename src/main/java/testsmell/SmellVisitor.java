@@ -0,0 +1,161 @@
+package testsmell;
+
+import com.github.javaparser.ast.body.*;
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.stmt.*;
+
+/**
+ * Per-node callbacks through which a smell analyzes a compilation unit.
+ * The compilation unit is walked only once by a {@link FusedVisitor}, which sends each node to every smell that
+ * overrides the callbacks of its type. For each node, {@code visit} is called before its children are walked and
+ * {@code leave} after them. Returning false from {@code visit} hides the children of the node from this smell only,
+ * and the matching {@code leave} is then skipped.
+ */
+public interface SmellVisitor {
+
+    /**
+     * Called once the whole compilation unit has been walked
+     */
+    default void end() {
+    }
+
+    default boolean visit(ClassOrInterfaceDeclaration n) {
+        return true;
+    }
+
+    default void leave(ClassOrInterfaceDeclaration n) {
+    }
+
+    default boolean visit(EnumDeclaration n) {
+        return true;
+    }
+
+    default void leave(EnumDeclaration n) {
+    }
+
+    default boolean visit(ConstructorDeclaration n) {
+        return true;
+    }
+
+    default void leave(ConstructorDeclaration n) {
+    }
+
+    default boolean visit(MethodDeclaration n) {
+        return true;
+    }
+
+    default void leave(MethodDeclaration n) {
+    }
+
+    default boolean visit(FieldDeclaration n) {
+        return true;
+    }
+
+    default void leave(FieldDeclaration n) {
+    }
+
+    default boolean visit(VariableDeclarator n) {
+        return true;
+    }
+
+    default void leave(VariableDeclarator n) {
+    }
+
+    default boolean visit(VariableDeclarationExpr n) {
+        return true;
+    }
+
+    default void leave(VariableDeclarationExpr n) {
+    }
+
+    default boolean visit(AssignExpr n) {
+        return true;
+    }
+
+    default void leave(AssignExpr n) {
+    }
+
+    default boolean visit(MethodCallExpr n) {
+        return true;
+    }
+
+    default void leave(MethodCallExpr n) {
+    }
+
+    default boolean visit(NameExpr n) {
+        return true;
+    }
+
+    default void leave(NameExpr n) {
+    }
+
+    default boolean visit(FieldAccessExpr n) {
+        return true;
+    }
+
+    default void leave(FieldAccessExpr n) {
+    }
+
+    default boolean visit(ObjectCreationExpr n) {
+        return true;
+    }
+
+    default void leave(ObjectCreationExpr n) {
+    }
+
+    default boolean visit(ConditionalExpr n) {
+        return true;
+    }
+
+    default void leave(ConditionalExpr n) {
+    }
+
+    default boolean visit(IfStmt n) {
+        return true;
+    }
+
+    default void leave(IfStmt n) {
+    }
+
+    default boolean visit(SwitchStmt n) {
+        return true;
+    }
+
+    default void leave(SwitchStmt n) {
+    }
+
+    default boolean visit(ForStmt n) {
+        return true;
+    }
+
+    default void leave(ForStmt n) {
+    }
+
+    default boolean visit(ForEachStmt n) {
+        return true;
+    }
+
+    default void leave(ForEachStmt n) {
+    }
+
+    default boolean visit(WhileStmt n) {
+        return true;
+    }
+
+    default void leave(WhileStmt n) {
+    }
+
+    default boolean visit(ThrowStmt n) {
+        return true;
+    }
+
+    default void leave(ThrowStmt n) {
+    }
+
+    default boolean visit(CatchClause n) {
+        return true;
+    }
+
+    default void leave(CatchClause n) {
+    }
+}
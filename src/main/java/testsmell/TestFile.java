@@ -8,8 +8,9 @@ import java.util.List;
 
 public class TestFile {
     private String app, testFilePath, productionFilePath;
-    private List<AbstractSmell> testSmells;
+    private List<SmellResult> testSmells;
     private int numberOfTestMethods = 0;
+    private boolean resolutionBudgetExceeded = false;
 
     public String getApp() {
         return app;
@@ -23,7 +24,7 @@ public class TestFile {
         return testFilePath;
     }
 
-    public List<AbstractSmell> getTestSmells() {
+    public List<SmellResult> getTestSmells() {
         return testSmells;
     }
 
@@ -38,7 +39,7 @@ public class TestFile {
         this.testSmells = new ArrayList<>();
     }
 
-    public void addSmell(AbstractSmell smell) {
+    public void addSmell(SmellResult smell) {
         testSmells.add(smell);
     }
 
@@ -121,4 +122,16 @@ public class TestFile {
     public void setNumberOfTestMethods(int numberOfTestMethods) {
         this.numberOfTestMethods = numberOfTestMethods;
     }
+
+    /**
+     * Tells whether the symbol resolution budget of the file has been used up, so that some smells have been
+     * detected from the syntax alone
+     */
+    public boolean isResolutionBudgetExceeded() {
+        return resolutionBudgetExceeded;
+    }
+
+    public void setResolutionBudgetExceeded(boolean resolutionBudgetExceeded) {
+        this.resolutionBudgetExceeded = resolutionBudgetExceeded;
+    }
 }
\ No newline at end of file
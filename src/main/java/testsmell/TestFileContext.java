@@ -0,0 +1,101 @@
+package testsmell;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithArguments;
+import com.github.javaparser.ast.stmt.ExplicitConstructorInvocationStmt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The facts about a test file that several smells derive from the same nodes: whether a method is a test or a setup
+ * method, the assertion a call makes, the assignments and calls found in a method or a constructor, and the symbols
+ * resolved. One context
+ * is shared by all the analyses of a file, so each fact is computed once, when first asked for, whichever smell asks
+ * first.
+ */
+public class TestFileContext {
+    private static final int TEST = 1, SETUP = 2;
+
+    private final Map<MethodDeclaration, Integer> methodKinds = new IdentityHashMap<>();
+    private final Map<MethodCallExpr, Assertion> assertions = new IdentityHashMap<>();
+    private final Map<Node, List<AssignExpr>> assignments = new IdentityHashMap<>();
+    private final Map<Node, List<NodeWithArguments<?>>> callSites = new IdentityHashMap<>();
+    private final ResolutionCache resolutions;
+
+    public TestFileContext() {
+        this(ResolutionBudget.UNLIMITED);
+    }
+
+    /**
+     * @param budget the symbol resolution allowed in the file
+     */
+    public TestFileContext(ResolutionBudget budget) {
+        resolutions = new ResolutionCache(budget);
+    }
+
+    /**
+     * Tells whether the method is a test method, as recognized by {@link Util#isValidTestMethod}
+     */
+    public boolean isTestMethod(MethodDeclaration n) {
+        return (kindOf(n) & TEST) != 0;
+    }
+
+    /**
+     * Tells whether the method is a setup method, as recognized by {@link Util#isValidSetupMethod}
+     */
+    public boolean isSetupMethod(MethodDeclaration n) {
+        return (kindOf(n) & SETUP) != 0;
+    }
+
+    private int kindOf(MethodDeclaration n) {
+        return methodKinds.computeIfAbsent(n, m ->
+                (Util.isValidTestMethod(m) ? TEST : 0) | (Util.isValidSetupMethod(m) ? SETUP : 0));
+    }
+
+    /**
+     * Returns the assertion made by the call, or null if it is not an assertion. The same assertion is returned to
+     * all the smells, so what it resolves is resolved once.
+     */
+    public Assertion getAssertion(MethodCallExpr call) {
+        if (Assertion.baseNameOf(call.getNameAsString()) == null)
+            return null;
+        return assertions.computeIfAbsent(call, c -> Assertion.of(c, resolutions));
+    }
+
+    /**
+     * Returns the symbol resolutions of the file
+     */
+    public ResolutionCache getResolutions() {
+        return resolutions;
+    }
+
+    /**
+     * Returns the assignments found in the node, such as the fixture assignments of a constructor or a setup method,
+     * in walk order
+     */
+    public List<AssignExpr> getAssignments(Node node) {
+        return assignments.computeIfAbsent(node, n -> Collections.unmodifiableList(n.findAll(AssignExpr.class)));
+    }
+
+    /**
+     * Returns the method calls, then the object creations, then the explicit constructor invocations found in the
+     * node, each in walk order
+     */
+    public List<NodeWithArguments<?>> getCallSites(Node node) {
+        return callSites.computeIfAbsent(node, n -> {
+            List<NodeWithArguments<?>> calls = new ArrayList<>();
+            calls.addAll(n.findAll(MethodCallExpr.class));
+            calls.addAll(n.findAll(ObjectCreationExpr.class));
+            calls.addAll(n.findAll(ExplicitConstructorInvocationStmt.class));
+            return Collections.unmodifiableList(calls);
+        });
+    }
+}
@@ -2,32 +2,67 @@ package testsmell;
 
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
 import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Provider;
+import com.github.javaparser.Providers;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.resolution.SymbolResolver;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.ClassLoaderTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 import org.apache.commons.lang3.StringUtils;
 import testsmell.smell.*;
 import thresholds.Thresholds;
-import report.JsonReporter;
-
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class TestSmellDetector {
 
+    /**
+     * Number of source roots whose parsed files are kept between the analyzed files
+     */
+    private static final int TYPE_SOLVER_CACHE_SIZE = 64;
+    private static final TypeSolverCache typeSolverCache = new TypeSolverCache(TYPE_SOLVER_CACHE_SIZE);
+    /**
+     * Weight of the production facts kept between the analyzed files, in number of names (see
+     * {@link ProductionFacts#getWeight()})
+     */
+    private static final long PRODUCTION_FACTS_CACHE_WEIGHT = 500_000;
+    private static final ProductionFactsCache productionFactsCache =
+            new ProductionFactsCache(PRODUCTION_FACTS_CACHE_WEIGHT);
+    /**
+     * Size from which a source file is memory-mapped instead of read into an array
+     */
+    public static final long MAPPED_SOURCE_SIZE = 64 * 1024;
+    /**
+     * The budget of the modes that do not resolve symbols, so that the smells rely on the syntax from the start
+     */
+    private static final ResolutionBudget NO_RESOLUTION = new ResolutionBudget(0, 0);
+
     private List<AbstractSmell> testSmells;
+    private TokenScanner tokenScanner;
     private Thresholds thresholds;
+    private ResolutionBudget resolutionBudget = ResolutionBudget.DEFAULT;
+    private AnalysisMode mode = AnalysisMode.STANDARD;
+    private ClasspathTypeSolver classpathTypeSolver;
 
     /**
      * Instantiates the various test smell analyzer classes and loads the objects into an list.
@@ -65,10 +100,55 @@ public class TestSmellDetector {
         testSmells.add(new MagicNumberTest(thresholds));
         testSmells.add(new DependentTest(thresholds));
         testSmells.add(new NewEagerTest(thresholds));
+        tokenScanner = newTokenScanner(testSmells);
     }
 
     public void setTestSmells(List<AbstractSmell> testSmells) {
         this.testSmells = testSmells;
+        this.tokenScanner = newTokenScanner(testSmells);
+    }
+
+    /**
+     * Sets the symbol resolution allowed in each test file, {@link ResolutionBudget#DEFAULT} unless set
+     */
+    public void setResolutionBudget(ResolutionBudget resolutionBudget) {
+        this.resolutionBudget = resolutionBudget;
+    }
+
+    /**
+     * Sets how deep the files are analyzed, {@link AnalysisMode#STANDARD} unless set. In {@link AnalysisMode#DEEP}
+     * mode, the symbols are resolved against the given jars as well, which are indexed once for all the files.
+     */
+    public void setAnalysisMode(AnalysisMode mode, List<Path> classpath) throws IOException {
+        this.mode = mode;
+        this.classpathTypeSolver = mode == AnalysisMode.DEEP && !classpath.isEmpty()
+                ? new ClasspathTypeSolver(classpath) : null;
+    }
+
+    public AnalysisMode getAnalysisMode() {
+        return mode;
+    }
+
+    /**
+     * Tells, for the name of each smell, how it is computed in the analysis mode
+     */
+    public Map<String, AnalysisMode.Precision> getPrecisions() {
+        Map<String, AnalysisMode.Precision> precisions = new LinkedHashMap<>();
+        for (AbstractSmell smell : testSmells) {
+            precisions.put(smell.getSmellName(), mode.precisionOf(smell));
+        }
+        return precisions;
+    }
+
+    /**
+     * Builds the scanner looking for the tokens that trigger the smells
+     */
+    private static TokenScanner newTokenScanner(List<AbstractSmell> testSmells) {
+        Set<String> tokens = new HashSet<>();
+        for (AbstractSmell smell : testSmells) {
+            smell.getTriggers().forEach(tokens::addAll);
+        }
+        return new TokenScanner(tokens);
     }
 
     /**
@@ -82,93 +162,184 @@ public class TestSmellDetector {
 
     /**
      * Loads the java source code file into an AST and then analyzes it for the existence of the different types of
-     * test smells
+     * test smells.
+     * The smells keep no state between calls, so a detector can analyze several files at the same time.
      */
     public TestFile detectSmells(TestFile testFile) throws IOException {
-        initializeSmells();
-
-        CombinedTypeSolver typeSolver = new CombinedTypeSolver();
-        typeSolver.add(new ReflectionTypeSolver(false)); // JRE
+        return detectSmells(parse(testFile, readSource(testFile.getTestFilePath()),
+                readSource(testFile.getProductionFilePath())));
+    }
 
-        if (!StringUtils.isEmpty(testFile.getTestFilePath())) {
-            File testDir = new File(testFile.getTestFilePath()).getParentFile();
-            if (testDir != null && testDir.isDirectory()) {
-                typeSolver.add(new JavaParserTypeSolver(testDir));
+    /**
+     * Reads the content of a source file, or returns null if no path is given.
+     * Files of at least {@link #MAPPED_SOURCE_SIZE} bytes are memory-mapped, the smaller ones are read at once into
+     * an array, as mapping them costs more than copying them.
+     */
+    public static ByteBuffer readSource(String path) throws IOException {
+        if (StringUtils.isEmpty(path))
+            return null;
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAPPED_SOURCE_SIZE)
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ByteBuffer source = ByteBuffer.allocate((int) size);
+            while (source.hasRemaining()) {
+                if (channel.read(source) < 0)
+                    break;
             }
+            return source.flip();
         }
+    }
 
-        if (!StringUtils.isEmpty(testFile.getProductionFilePath())) {
-            File prodDir = new File(testFile.getProductionFilePath()).getParentFile();
-            if (prodDir != null && prodDir.isDirectory()) {
-                typeSolver.add(new JavaParserTypeSolver(prodDir));
-            }
+    /**
+     * Provides the characters of a source to the parser, decoding it from UTF-8. A source read into an array is
+     * decoded at once into a string, a mapped one is decoded by the parser a chunk at a time, straight from the
+     * mapped memory. Malformed input is replaced in both cases.
+     */
+    static Provider decode(ByteBuffer source) {
+        if (source.hasArray())
+            return Providers.provider(new String(source.array(), source.arrayOffset() + source.position(),
+                    source.remaining(), StandardCharsets.UTF_8));
+        return Providers.provider(new ByteBufferInputStream(source.duplicate()), StandardCharsets.UTF_8);
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
         }
 
-        typeSolver.add(new ClassLoaderTypeSolver(Thread.currentThread().getContextClassLoader()));
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
 
-        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(typeSolver);
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining())
+                return -1;
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
 
-        ParserConfiguration parserConfig = new ParserConfiguration().setSymbolResolver(symbolSolver);
+    /**
+     * Parses the sources of the test file and of its production file, as read by {@link #readSource(String)}.
+     * The test compilation unit resolves its symbols against the directories of the two files. Of the production
+     * file, only the facts needed by the smells triggered by the test file are collected, and they are shared by all
+     * the test files of the run paired with it: the file is parsed, without symbol resolution, only if some are not
+     * known yet. In {@link AnalysisMode#FAST} mode, neither the symbols nor the production file are looked at, and the
+     * test file is parsed without validation, keeping neither its tokens nor its comments.
+     */
+    public ParsedTestFile parse(TestFile testFile, ByteBuffer testSource, ByteBuffer productionSource) throws IOException {
+        ParserConfiguration parserConfig = new ParserConfiguration();
+        if (mode.resolvesSymbols()) {
+            parserConfig.setSymbolResolver(newSymbolResolver(testFile));
+        } else {
+            // without resolution, nothing needs the validations nor the tokens, and no smell reads the comments
+            parserConfig.setLanguageLevel(ParserConfiguration.LanguageLevel.RAW).setStoreTokens(false)
+                    .setAttributeComments(false);
+        }
         JavaParser parser = new JavaParser(parserConfig);
 
         CompilationUnit testFileCU = null;
-        CompilationUnit prodFileCU = null;
+        Map<Class<?>, ProductionFacts> productionFacts = null;
+        Set<String> testFileTokens = null;
+
+        if (testSource != null) {
+            testFileTokens = tokenScanner.scan(testSource);
+            ParseResult<CompilationUnit> result = parser.parse(ParseStart.COMPILATION_UNIT, decode(testSource));
+            if (result.isSuccessful() && result.getResult().isPresent()) {
+                testFileCU = result.getResult().get();
+                TypeDeclaration<?> typeDecl = testFileCU.getTypes().get(0);
+                testFile.setNumberOfTestMethods(typeDecl.getMethods().size());
+            } else {
+                throw new IOException("Parsing errors: " + result.getProblems());
+            }
+        }
+
+        if (productionSource != null && mode.readsProductionFile()) {
+            productionFacts = productionFactsCache.getFacts(Paths.get(testFile.getProductionFilePath()),
+                    productionFactsCollectors(testFileTokens), () -> {
+                        // the production file is only looked at for its declarations, nothing is resolved there
+                        JavaParser productionParser = new JavaParser(new ParserConfiguration());
+                        ParseResult<CompilationUnit> result = productionParser.parse(ParseStart.COMPILATION_UNIT,
+                                decode(productionSource));
+                        if (result.isSuccessful() && result.getResult().isPresent()) {
+                            return result.getResult().get();
+                        }
+                        throw new IOException("Parsing errors: " + result.getProblems());
+                    });
+        }
+
+        return new ParsedTestFile(testFile, testFileCU, productionFacts, testFileTokens);
+    }
+
+    /**
+     * Builds the resolver of the symbols of a test file: they are looked for in the JRE, in the directories of the
+     * test and production files, in the jars of the classpath in {@link AnalysisMode#DEEP} mode, and in the classpath
+     * of the tool
+     */
+    private SymbolResolver newSymbolResolver(TestFile testFile) {
+        CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+        typeSolver.add(new ReflectionTypeSolver(false)); // JRE
 
         if (!StringUtils.isEmpty(testFile.getTestFilePath())) {
-            try (FileInputStream in = new FileInputStream(testFile.getTestFilePath())) {
-                ParseResult<CompilationUnit> result = parser.parse(in);
-                if (result.isSuccessful() && result.getResult().isPresent()) {
-                    testFileCU = result.getResult().get();
-                    TypeDeclaration<?> typeDecl = testFileCU.getTypes().get(0);
-                    testFile.setNumberOfTestMethods(typeDecl.getMethods().size());
-                } else {
-                    throw new IOException("Parsing errors: " + result.getProblems());
-                }
+            File testDir = new File(testFile.getTestFilePath()).getParentFile();
+            if (testDir != null && testDir.isDirectory()) {
+                typeSolver.add(typeSolverCache.newTypeSolver(testDir));
             }
         }
 
         if (!StringUtils.isEmpty(testFile.getProductionFilePath())) {
-            try (FileInputStream in = new FileInputStream(testFile.getProductionFilePath())) {
-                ParseResult<CompilationUnit> result = parser.parse(in);
-                if (result.isSuccessful() && result.getResult().isPresent()) {
-                    prodFileCU = result.getResult().get();
-                } else {
-                    throw new IOException("Parsing errors: " + result.getProblems());
-                }
+            File prodDir = new File(testFile.getProductionFilePath()).getParentFile();
+            if (prodDir != null && prodDir.isDirectory()) {
+                typeSolver.add(typeSolverCache.newTypeSolver(prodDir));
             }
         }
 
-        for (AbstractSmell smell : testSmells) {
-            try {
-                smell.runAnalysis(testFileCU, prodFileCU,
-                        testFile.getTestFileNameWithoutExtension(),
-                        testFile.getProductionFileNameWithoutExtension());
-            } catch (FileNotFoundException e) {
-                testFile.addSmell(null);
-                continue;
-            }
-            testFile.addSmell(smell);
+        if (classpathTypeSolver != null) {
+            typeSolver.add(classpathTypeSolver.newTypeSolver());
         }
-        java.util.Map<String, java.util.Set<String>> jsonMap = new java.util.LinkedHashMap<>();
 
-        for (AbstractSmell smell : testSmells) {
-            if (smell == null) continue;
-            java.util.Map<String, java.util.Set<String>> partial = smell.getResult();
-            if (partial == null) continue;
+        typeSolver.add(new ClassLoaderTypeSolver(Thread.currentThread().getContextClassLoader()));
 
-            for (java.util.Map.Entry<String, java.util.Set<String>> e : partial.entrySet()) {
-                String smellName = e.getKey();
-                java.util.Set<String> methods = e.getValue();
-                if (methods == null) continue;
+        return new JavaSymbolSolver(typeSolver);
+    }
 
-                jsonMap.computeIfAbsent(smellName, k -> new java.util.LinkedHashSet<>())
-                        .addAll(methods);
+    /**
+     * Returns the collectors of the production facts needed by the smells triggered by the tokens of a test file
+     */
+    private List<ProductionFacts.Collector> productionFactsCollectors(Set<String> testFileTokens) {
+        List<ProductionFacts.Collector> collectors = new ArrayList<>();
+        for (AbstractSmell smell : testSmells) {
+            if (testFileTokens == null || smell.isTriggeredBy(testFileTokens)) {
+                ProductionFacts.Collector collector = smell.newProductionFactsCollector();
+                if (collector != null)
+                    collectors.add(collector);
             }
         }
-        System.out.println(report.JsonReporter.toJson(jsonMap));
+        return collectors;
+    }
 
+    /**
+     * Analyzes a parsed test file for the existence of the different types of test smells. The test file records
+     * whether its resolution budget has been used up, leaving some smells to the syntactic heuristics.
+     */
+    public TestFile detectSmells(ParsedTestFile parsedTestFile) {
+        TestFile testFile = parsedTestFile.getTestFile();
+        CompilationUnit testFileCU = parsedTestFile.getTestFileCompilationUnit();
+        TestFileContext context = new TestFileContext(mode.resolvesSymbols() ? resolutionBudget : NO_RESOLUTION);
+        List<SmellResult> results = FusedVisitor.analyze(testSmells, testFileCU, parsedTestFile.getProductionFacts(),
+                testFile.getTestFileNameWithoutExtension(),
+                testFile.getProductionFileNameWithoutExtension(),
+                parsedTestFile.getTestFileTokens(), context);
+        for (SmellResult result : results) {
+            testFile.addSmell(result);
+        }
+        testFile.setResolutionBudgetExceeded(mode.resolvesSymbols() && context.getResolutions().isExhausted());
         return testFile;
     }
-
-
 }
@@ -0,0 +1,123 @@
+package testsmell;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Finds which of a set of tokens occur in a source, in a single pass over its raw bytes, with an Aho-Corasick
+ * automaton. The tokens are ASCII and matched ignoring case, so that a token found is a superset of the identifiers,
+ * keywords and annotations spelled like it.
+ */
+public class TokenScanner {
+    private static final int ALPHABET = 256;
+
+    private final String[] tokens;
+    /**
+     * The next state for each state and byte, failure transitions included
+     */
+    private final int[][] transitions;
+    /**
+     * The tokens ending in each state, null when none does
+     */
+    private final BitSet[] matches;
+
+    public TokenScanner(Collection<String> tokens) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String token : tokens) {
+            if (token.isEmpty() || !token.chars().allMatch(c -> c < 0x80))
+                throw new IllegalArgumentException("Not an ASCII token: '" + token + "'");
+            distinct.add(token.toLowerCase(Locale.ROOT));
+        }
+        this.tokens = distinct.toArray(new String[0]);
+
+        List<int[]> states = new ArrayList<>();
+        List<BitSet> ends = new ArrayList<>();
+        states.add(newState());
+        ends.add(null);
+        for (int i = 0; i < this.tokens.length; i++) {
+            int state = 0;
+            for (char c : this.tokens[i].toCharArray()) {
+                if (states.get(state)[c] < 0) {
+                    states.get(state)[c] = states.size();
+                    states.add(newState());
+                    ends.add(null);
+                }
+                state = states.get(state)[c];
+            }
+            if (ends.get(state) == null)
+                ends.set(state, new BitSet());
+            ends.get(state).set(i);
+        }
+
+        // breadth first, so that the failure state of a state is complete before the state itself
+        int[] failures = new int[states.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        int[] root = states.get(0);
+        for (int b = 0; b < ALPHABET; b++) {
+            if (root[b] < 0) {
+                root[b] = 0;
+            } else {
+                queue.add(root[b]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            BitSet failureEnds = ends.get(failures[state]);
+            if (failureEnds != null) {
+                if (ends.get(state) == null)
+                    ends.set(state, new BitSet());
+                ends.get(state).or(failureEnds);
+            }
+            int[] next = states.get(state);
+            for (int b = 0; b < ALPHABET; b++) {
+                if (next[b] < 0) {
+                    next[b] = states.get(failures[state])[b];
+                } else {
+                    failures[next[b]] = states.get(failures[state])[b];
+                    queue.add(next[b]);
+                }
+            }
+        }
+        this.transitions = states.toArray(new int[0][]);
+        this.matches = ends.toArray(new BitSet[0]);
+    }
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    /**
+     * Returns the tokens occurring in the source, in lower case
+     */
+    public Set<String> scan(ByteBuffer source) {
+        BitSet found = new BitSet(tokens.length);
+        int state = 0;
+        for (int i = source.position(); i < source.limit(); i++) {
+            int b = source.get(i) & 0xff;
+            if (b >= 'A' && b <= 'Z')
+                b += 'a' - 'A';
+            state = transitions[state][b];
+            if (matches[state] != null) {
+                found.or(matches[state]);
+                if (found.cardinality() == tokens.length)
+                    break;
+            }
+        }
+        Set<String> result = new HashSet<>();
+        found.stream().forEach(i -> result.add(tokens[i]));
+        return Collections.unmodifiableSet(result);
+    }
+}
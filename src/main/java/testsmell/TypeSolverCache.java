@@ -0,0 +1,66 @@
+package testsmell;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.symbolsolver.cache.Cache;
+import com.github.javaparser.symbolsolver.cache.GuavaCache;
+import com.github.javaparser.symbolsolver.cache.InMemoryCache;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.google.common.cache.CacheBuilder;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps the source files parsed by the type solvers of the most recently used source roots, so that the pairs
+ * sharing a directory don't parse it again. Once more than {@code maximumSize} roots are cached, the least
+ * recently used one is evicted.
+ * <p>
+ * Only the parsed files are shared: every type solver still resolves the types on its own, since a resolved type
+ * keeps a reference to the solver that found it.
+ */
+public class TypeSolverCache {
+
+    private final Map<Path, SourceRoot> sourceRoots;
+
+    public TypeSolverCache(int maximumSize) {
+        this.sourceRoots = new LinkedHashMap<Path, SourceRoot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, SourceRoot> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Creates a type solver for the given directory, backed by the files already parsed from it
+     */
+    public JavaParserTypeSolver newTypeSolver(File directory) {
+        SourceRoot sourceRoot = getSourceRoot(directory.toPath().toAbsolutePath().normalize());
+        ParserConfiguration configuration = new ParserConfiguration()
+                .setLanguageLevel(ParserConfiguration.LanguageLevel.BLEEDING_EDGE);
+        return new JavaParserTypeSolver(sourceRoot.path, new JavaParser(configuration),
+                sourceRoot.parsedFiles, sourceRoot.parsedDirectories, InMemoryCache.create());
+    }
+
+    private synchronized SourceRoot getSourceRoot(Path path) {
+        return sourceRoots.computeIfAbsent(path, SourceRoot::new);
+    }
+
+    private static class SourceRoot {
+        private final Path path;
+        private final Cache<Path, Optional<CompilationUnit>> parsedFiles =
+                GuavaCache.create(CacheBuilder.newBuilder().softValues().build());
+        private final Cache<Path, List<CompilationUnit>> parsedDirectories =
+                GuavaCache.create(CacheBuilder.newBuilder().softValues().build());
+
+        private SourceRoot(Path path) {
+            this.path = path;
+        }
+    }
+}
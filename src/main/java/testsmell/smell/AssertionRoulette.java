@@ -1,23 +1,15 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.ast.expr.StringLiteralExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
-import com.github.javaparser.resolution.UnsolvedSymbolException;
-import com.github.javaparser.resolution.types.ResolvedType;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import testsmell.AbstractSmell;
-import testsmell.SmellyElement;
+import testsmell.Assertion;
+import testsmell.SmellAnalysis;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
 import java.util.List;
+import java.util.Set;
 
 /**
  * "Guess what's wrong?" This smell comes from having a number of assertions in a test method that have no explanation.
@@ -26,9 +18,6 @@ import java.util.List;
  */
 public class AssertionRoulette extends AbstractSmell {
 
-    private static final Logger log = LoggerFactory.getLogger(AssertionRoulette.class);
-    private int assertionsCount = 0;
-
     public AssertionRoulette(Thresholds thresholds) {
         super(thresholds);
     }
@@ -42,21 +31,32 @@ public class AssertionRoulette extends AbstractSmell {
     }
 
     /**
-     * Analyze the test file for test methods for multiple assert statements without an explanation/message
+     * Assertions and failures without a message are counted, unless the threshold makes a test without them smelly
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        AssertionRoulette.ClassVisitor classVisitor;
-        classVisitor = new AssertionRoulette.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
-        assertionsCount = classVisitor.overallAssertions;
+    public List<Set<String>> getTriggers() {
+        if (thresholds.getAssertionRoulette() < 1)
+            return List.of(TEST_METHOD_MARKERS);
+        return List.of(TEST_METHOD_MARKERS, Set.of("assert", "fail"));
     }
 
-    public int getAssertionsCount() {
-        return assertionsCount;
+    /**
+     * Whether the first of three arguments is a message depends on its type
+     */
+    @Override
+    public boolean resolvesSymbols() {
+        return true;
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    /**
+     * Analyze the test file for test methods for multiple assert statements without an explanation/message
+     */
+    @Override
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new AssertionRoulette.ClassVisitor();
+    }
+
+    private class ClassVisitor extends SmellAnalysis {
         private MethodDeclaration currentMethod = null;
         private int assertNoMessageCount = 0;
         private int assertCount = 0;
@@ -65,92 +65,60 @@ public class AssertionRoulette extends AbstractSmell {
 
         // examine all methods in the test class
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 currentMethod = n;
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false); //default value is false (i.e. no smell)
-                super.visit(n, arg);
-
-                boolean isSmelly = assertNoMessageCount >= thresholds.getAssertionRoulette();
+                return true;
+            }
+            return false;
+        }
 
-                //the method has a smell if there is more than 1 call to production methods
-                testMethod.setSmell(isSmelly);
-                // if there is only 1 assert statement in the method, then a explanation message is not needed
-                if (assertCount == 1)
-                    testMethod.setSmell(false);
-                    //if there is more than one assert statement, then all the asserts need to have an explanation message
-                else if (isSmelly) {
-                    testMethod.setSmell(true);
-                    addScore(assertNoMessageCount);
-                }
+        @Override
+        public void leave(MethodDeclaration n) {
+            boolean isSmelly = assertNoMessageCount >= thresholds.getAssertionRoulette();
+
+            //the method has a smell if there is more than 1 call to production methods
+            testMethod.setSmell(isSmelly);
+            // if there is only 1 assert statement in the method, then a explanation message is not needed
+            if (assertCount == 1)
+                testMethod.setSmell(false);
+                //if there is more than one assert statement, then all the asserts need to have an explanation message
+            else if (isSmelly) {
+                testMethod.setSmell(true);
+                addScore(assertNoMessageCount);
+            }
 
-                testMethod.addDataItem("AssertCount", String.valueOf(assertNoMessageCount));
-                smellyElementsSet.add(testMethod);
+            testMethod.addDataItem("AssertCount", String.valueOf(assertNoMessageCount));
+            smellyElementsSet.add(testMethod);
 
-                //reset values for next method
-                currentMethod = null;
-                overallAssertions += assertCount;
-                assertCount = 0;
-                assertNoMessageCount = 0;
-            }
+            //reset values for next method
+            currentMethod = null;
+            overallAssertions += assertCount;
+            assertCount = 0;
+            assertNoMessageCount = 0;
         }
 
         // examine the methods being called within the test method
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
-            super.visit(n, arg);
+        public void leave(MethodCallExpr n) {
             if (currentMethod != null) {
-                if (n.getNameAsString().startsWith("assertEquals")
-                        || n.getNameAsString().startsWith("assertArrayEquals")
-                        || n.getNameAsString().startsWith("assertNotEquals")) {
-                    assertCount++;
-                    int argCount = n.getArguments().size();
-                    boolean hasMessage = false;
-                    if (argCount > 2) {
-                        Expression firstArg = n.getArgument(0);
-                        try {
-                            ResolvedType rt = firstArg.calculateResolvedType();
-                            if (rt.isReferenceType()
-                                    && rt.asReferenceType().getQualifiedName().equals("java.lang.String")) {
-                                hasMessage = true;
-                            }
-                        } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
-                            log.error("Non riesco a leggere il simbolo");
-                        }
-                    }
-                    if (!(argCount == 4 || (argCount == 3 && hasMessage))) {
-                        assertNoMessageCount++;
-                    }
+                Assertion assertion = context.getAssertion(n);
+                if (assertion == null) {
+                    return;
                 }
-                else if (n.getNameAsString().startsWith(("assertNotSame")) ||
-                        n.getNameAsString().startsWith(("assertSame")) ||
-                        n.getNameAsString().startsWith("assertThrows") ||
-                        n.getNameAsString().startsWith(("assertThat"))) {
-                    assertCount++;
-                    if (n.getArguments().size() < 3) {
+                assertCount++;
+                if (assertion.getFamily() == Assertion.Family.EQUALS) {
+                    // a comparison of doubles takes a delta as third argument, a message comes with a fourth one
+                    int argCount = assertion.getArity();
+                    if (!(argCount == 4 || (argCount == 3 && assertion.hasMessage()))) {
                         assertNoMessageCount++;
                     }
+                } else if (!assertion.hasMessage()) {
+                    assertNoMessageCount++;
                 }
-                else if (n.getNameAsString().equals("assertFalse") ||
-                        n.getNameAsString().equals("assertNotNull") ||
-                        n.getNameAsString().equals("assertNull") ||
-                        n.getNameAsString().equals("assertTrue")) {
-                    assertCount++;
-                    if (n.getArguments().size() < 2) {
-                        assertNoMessageCount++;
-                    }
-                }
-                else if (n.getNameAsString().equals("fail")) {
-                    assertCount++;
-                    if (n.getArguments().size() < 1) {
-                        assertNoMessageCount++;
-                    }
-                }
-
             }
         }
-
     }
 }
-
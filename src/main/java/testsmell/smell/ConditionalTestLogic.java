@@ -1,18 +1,15 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.ConditionalExpr;
 import com.github.javaparser.ast.stmt.*;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
-import testsmell.SmellyElement;
+import testsmell.SmellAnalysis;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
 import java.util.List;
+import java.util.Set;
 
 /*
 This class check a test method for the existence of loops and conditional statements in the methods body
@@ -31,109 +28,112 @@ public class ConditionalTestLogic extends AbstractSmell {
         return "Conditional Test Logic";
     }
 
+    /**
+     * Conditions and loops are counted
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        if (thresholds.getConditionalTestLogic() < 0)
+            return List.of(TEST_METHOD_MARKERS);
+        return List.of(TEST_METHOD_MARKERS, Set.of("if", "switch", "?", "for", "while"));
+    }
+
     /**
      * Analyze the test file for test methods that use conditional statements
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        ConditionalTestLogic.ClassVisitor classVisitor;
-        classVisitor = new ConditionalTestLogic.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new ConditionalTestLogic.ClassVisitor();
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
         private MethodDeclaration currentMethod = null;
         private int conditionCount, ifCount, switchCount, forCount, foreachCount, whileCount = 0;
         TestMethod testMethod;
 
         // examine all methods in the test class
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 currentMethod = n;
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false); //default value is false (i.e. no smell)
-                super.visit(n, arg);
-
-                boolean isSmelly = conditionCount > thresholds.getConditionalTestLogic() |
-                        ifCount > thresholds.getConditionalTestLogic() |
-                        switchCount > thresholds.getConditionalTestLogic() |
-                        foreachCount > thresholds.getConditionalTestLogic() |
-                        forCount > thresholds.getConditionalTestLogic() |
-                        whileCount > thresholds.getConditionalTestLogic();
-                if(isSmelly){
-                    putSmellyElement(n.getName().toString());
-                    addScore(conditionCount);
-                }
-                testMethod.setSmell(isSmelly);
-
-                testMethod.addDataItem("ConditionCount", String.valueOf(conditionCount));
-                testMethod.addDataItem("IfCount", String.valueOf(ifCount));
-                testMethod.addDataItem("SwitchCount", String.valueOf(switchCount));
-                testMethod.addDataItem("ForeachCount", String.valueOf(foreachCount));
-                testMethod.addDataItem("ForCount", String.valueOf(forCount));
-                testMethod.addDataItem("WhileCount", String.valueOf(whileCount));
-
-                smellyElementsSet.add(testMethod);
-
-                //reset values for next method
-                currentMethod = null;
-                conditionCount = 0;
-                ifCount = 0;
-                switchCount = 0;
-                forCount = 0;
-                foreachCount = 0;
-                whileCount = 0;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void leave(MethodDeclaration n) {
+            boolean isSmelly = conditionCount > thresholds.getConditionalTestLogic() |
+                    ifCount > thresholds.getConditionalTestLogic() |
+                    switchCount > thresholds.getConditionalTestLogic() |
+                    foreachCount > thresholds.getConditionalTestLogic() |
+                    forCount > thresholds.getConditionalTestLogic() |
+                    whileCount > thresholds.getConditionalTestLogic();
+            if(isSmelly){
+                putSmellyElement(n.getName().toString());
+                addScore(conditionCount);
             }
+            testMethod.setSmell(isSmelly);
+
+            testMethod.addDataItem("ConditionCount", String.valueOf(conditionCount));
+            testMethod.addDataItem("IfCount", String.valueOf(ifCount));
+            testMethod.addDataItem("SwitchCount", String.valueOf(switchCount));
+            testMethod.addDataItem("ForeachCount", String.valueOf(foreachCount));
+            testMethod.addDataItem("ForCount", String.valueOf(forCount));
+            testMethod.addDataItem("WhileCount", String.valueOf(whileCount));
+
+            smellyElementsSet.add(testMethod);
+
+            //reset values for next method
+            currentMethod = null;
+            conditionCount = 0;
+            ifCount = 0;
+            switchCount = 0;
+            forCount = 0;
+            foreachCount = 0;
+            whileCount = 0;
         }
 
 
         @Override
-        public void visit(IfStmt n, Void arg) {
-            super.visit(n, arg);
+        public void leave(IfStmt n) {
             if (currentMethod != null) {
                 ifCount++;
             }
         }
 
         @Override
-        public void visit(SwitchStmt n, Void arg) {
-
-            super.visit(n, arg);
+        public void leave(SwitchStmt n) {
             if (currentMethod != null) {
                 switchCount++;
             }
         }
 
         @Override
-        public void visit(ConditionalExpr n, Void arg) {
-
-            super.visit(n, arg);
+        public void leave(ConditionalExpr n) {
             if (currentMethod != null) {
                 conditionCount++;
             }
         }
 
         @Override
-        public void visit(ForStmt n, Void arg) {
-
-            super.visit(n, arg);
+        public void leave(ForStmt n) {
             if (currentMethod != null) {
                 forCount++;
             }
         }
 
         @Override
-        public void visit(ForEachStmt n, Void arg) {
-            super.visit(n, arg);
+        public void leave(ForEachStmt n) {
             if (currentMethod != null) {
                 foreachCount++;
             }
         }
 
         @Override
-        public void visit(WhileStmt n, Void arg) {
-            super.visit(n, arg);
+        public void leave(WhileStmt n) {
             if (currentMethod != null) {
                 whileCount++;
             }
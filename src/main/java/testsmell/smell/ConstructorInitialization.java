@@ -1,35 +1,23 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.ConstructorDeclaration;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
-import testsmell.SmellyElement;
+import testsmell.SmellAnalysis;
 import testsmell.TestClass;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
-import java.util.List;
-
 /*
 This class checks if the code file contains a Constructor. Ideally, the test suite should not have a constructor. Initialization of fields should be in the setUP() method
 If this code detects the existence of a constructor, it sets the class as smelly
  */
 public class ConstructorInitialization extends AbstractSmell {
 
-    private String testFileName;
-
     public ConstructorInitialization(Thresholds thresholds) {
         super(thresholds);
     }
 
-    @Override
-    public int getNumberOfSmellyTests() {
-        return super.getNumberOfSmellyTests();
-    }
-
     /**
      * Checks of 'Constructor Initialization' smell
      */
@@ -42,28 +30,30 @@ public class ConstructorInitialization extends AbstractSmell {
      * Analyze the test file for Constructor Initialization smell
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        this.testFileName = testFileName;
-        ConstructorInitialization.ClassVisitor classVisitor;
-        classVisitor = new ConstructorInitialization.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new ConstructorInitialization.ClassVisitor(testFileName);
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
+        private final String testFileName;
         TestClass testClass;
         boolean constructorAllowed = false;
 
+        private ClassVisitor(String testFileName) {
+            this.testFileName = testFileName;
+        }
+
         @Override
-        public void visit(ClassOrInterfaceDeclaration n, Void arg) {
+        public boolean visit(ClassOrInterfaceDeclaration n) {
             for (int i = 0; i < n.getExtendedTypes().size(); i++) {
                 ClassOrInterfaceType node = n.getExtendedTypes().get(i);
                 constructorAllowed = node.getNameAsString().equals("ActivityInstrumentationTestCase2");
             }
-            super.visit(n, arg);
+            return true;
         }
 
         @Override
-        public void visit(ConstructorDeclaration n, Void arg) {
+        public boolean visit(ConstructorDeclaration n) {
             // This check is needed to handle java files that have multiple classes
             if (n.getNameAsString().equals(testFileName)) {
                 if (!constructorAllowed) {
@@ -76,6 +66,7 @@ public class ConstructorInitialization extends AbstractSmell {
                     smellyElementsSet.add(testClass);
                 }
             }
+            return false;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,13 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
-import testsmell.SmellyElement;
+import testsmell.SmellAnalysis;
 import testsmell.TestClass;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
 import java.util.List;
+import java.util.Set;
 
 /*
 By default Android Studio creates default test classes when a project is created. These classes are meant to serve as an example for developers when wring unit tests
@@ -29,23 +27,24 @@ public class DefaultTest extends AbstractSmell {
         return "Default Test";
     }
 
+    /**
+     * The smell is the default test class of Android Studio
+     */
     @Override
-    public int getNumberOfSmellyTests() {
-        return super.getNumberOfSmellyTests();
+    public List<Set<String>> getTriggers() {
+        return List.of(Set.of("exampleunittest", "exampleinstrumentedtest"));
     }
 
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        DefaultTest.ClassVisitor classVisitor;
-        classVisitor = new DefaultTest.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new DefaultTest.ClassVisitor();
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
         TestClass testClass;
 
         @Override
-        public void visit(ClassOrInterfaceDeclaration n, Void arg) {
+        public boolean visit(ClassOrInterfaceDeclaration n) {
             if (n.getNameAsString().equals("ExampleUnitTest") || n.getNameAsString().equals("ExampleInstrumentedTest")) {
                 testClass = new TestClass(n.getNameAsString());
                 testClass.setHasSmell(true);
@@ -53,7 +52,7 @@ public class DefaultTest extends AbstractSmell {
                 addScore(1);
                 smellyElementsSet.add(testClass);
             }
-            super.visit(n, arg);
+            return true;
         }
     }
-}
\ No newline at end of file
+}
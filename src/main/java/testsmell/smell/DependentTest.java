@@ -1,24 +1,29 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import com.github.javaparser.ast.expr.ThisExpr;
 import testsmell.AbstractSmell;
-import testsmell.Util;
+import testsmell.SmellAnalysis;
+import testsmell.TestMethod;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class DependentTest extends AbstractSmell {
 
-    private List<TestMethod> testMethods;
-
     public DependentTest(Thresholds thresholds) {
         super(thresholds);
-        testMethods = new ArrayList<>();
     }
 
     /**
@@ -30,93 +35,103 @@ public class DependentTest extends AbstractSmell {
     }
 
     /**
-     * Analyze the test file for test methods that call other test methods
+     * Only test methods are checked
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        DependentTest.ClassVisitor classVisitor;
-        classVisitor = new DependentTest.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
-
-        for (TestMethod testMethod : testMethods) {
-            if (testMethod.getCalledMethods().stream().anyMatch(x -> x.getName().equals(testMethods.stream().map(z -> z.getMethodDeclaration().getNameAsString())))) {
-                smellyElementsSet.add(new testsmell.TestMethod(testMethod.getMethodDeclaration().getNameAsString()));
-                putSmellyElement(testMethod.getMethodDeclaration().getNameAsString());
-                addScore(1);
-            }
-        }
+    public List<Set<String>> getTriggers() {
+        return List.of(TEST_METHOD_MARKERS);
+    }
 
-/*
-        for (int i = 0; i < testMethods.get(i).getCalledMethods().size(); i++) {
-            for (TestMethod testMethod : testMethods) {
-                if (testMethods.get(i).getCalledMethods().stream().anyMatch(x -> x.getName().equals(testMethod.getMethodDeclaration().getNameAsString()))) {
-                    smellyElementList.add(new testsmell.TestMethod(testMethod.getMethodDeclaration().getNameAsString()));
-                }
-            }
-        }*/
+    /**
+     * Analyze the test file for test methods that call other test methods
+     */
+    @Override
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new DependentTest.ClassVisitor();
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
-        private MethodDeclaration currentMethod = null;
-        List<CalledMethod> calledMethods;
+    /**
+     * Builds the call graph of the methods of the class, keyed by method name, in a single pass. A test method is
+     * dependent when it calls another test method, directly or through helper methods of the class.
+     */
+    private class ClassVisitor extends SmellAnalysis {
+        /**
+         * The names of the methods called by each method of the class, through calls without a scope or on 'this'
+         */
+        private final Map<String, Set<String>> calledMethods = new LinkedHashMap<>();
+        private final Set<String> testMethods = new LinkedHashSet<>();
+        private final Deque<String> currentMethods = new ArrayDeque<>();
 
         // examine all methods in the test class
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
-                currentMethod = n;
-                calledMethods = new ArrayList<>();
-
-                super.visit(n, arg);
-                testMethods.add(new DependentTest.TestMethod(n, calledMethods));
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
+                testMethods.add(n.getNameAsString());
             }
+            calledMethods.computeIfAbsent(n.getNameAsString(), k -> new HashSet<>());
+            currentMethods.push(n.getNameAsString());
+            return true;
         }
 
-        // examine the methods being called within the test method
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
-            super.visit(n, arg);
-            if (currentMethod != null) {
-                if (!calledMethods.contains(new CalledMethod(n.getArguments().size(), n.getNameAsString()))) {
-                    calledMethods.add(new CalledMethod(n.getArguments().size(), n.getNameAsString()));
-                }
-            }
-        }
-    }
-
-    private class TestMethod {
-        public List<CalledMethod> getCalledMethods() {
-            return calledMethods;
+        public void leave(MethodDeclaration n) {
+            currentMethods.pop();
         }
 
-        public MethodDeclaration getMethodDeclaration() {
-            return methodDeclaration;
-        }
-
-        public TestMethod(MethodDeclaration methodDeclaration, List<CalledMethod> calledMethods) {
-            this.methodDeclaration = methodDeclaration;
-            this.calledMethods = calledMethods;
+        // examine the methods being called within the method
+        @Override
+        public void leave(MethodCallExpr n) {
+            if (!currentMethods.isEmpty()
+                    && (!n.getScope().isPresent() || n.getScope().get() instanceof ThisExpr)) {
+                calledMethods.get(currentMethods.peek()).add(n.getNameAsString());
+            }
         }
 
-        private List<CalledMethod> calledMethods;
-        private MethodDeclaration methodDeclaration;
-    }
-
-    private class CalledMethod {
-        public int getTotalArguments() {
-            return totalArguments;
-        }
+        /**
+         * Walks the call graph backwards from the test methods, keeping for each method up to two of the test
+         * methods it reaches, itself included. Each method is queued at most twice, so the walk is linear in the
+         * size of the graph. A test method reaching two test methods reaches another one than itself.
+         */
+        @Override
+        public void end() {
+            Map<String, List<String>> callers = new HashMap<>();
+            calledMethods.forEach((caller, callees) -> {
+                for (String callee : callees) {
+                    if (calledMethods.containsKey(callee))
+                        callers.computeIfAbsent(callee, k -> new ArrayList<>()).add(caller);
+                }
+            });
 
-        public String getName() {
-            return name;
-        }
+            Map<String, Set<String>> reachedTests = new HashMap<>();
+            Deque<String> queue = new ArrayDeque<>();
+            for (String testMethod : testMethods) {
+                reachedTests.computeIfAbsent(testMethod, k -> new HashSet<>()).add(testMethod);
+                queue.add(testMethod);
+            }
+            while (!queue.isEmpty()) {
+                String method = queue.poll();
+                Set<String> reached = reachedTests.get(method);
+                for (String caller : callers.getOrDefault(method, Collections.emptyList())) {
+                    Set<String> callerReached = reachedTests.computeIfAbsent(caller, k -> new HashSet<>());
+                    boolean changed = false;
+                    for (String test : reached) {
+                        if (callerReached.size() < 2 && callerReached.add(test))
+                            changed = true;
+                    }
+                    if (changed)
+                        queue.add(caller);
+                }
+            }
 
-        public CalledMethod(int totalArguments, String name) {
-            this.totalArguments = totalArguments;
-            this.name = name;
+            for (String testMethod : testMethods) {
+                if (reachedTests.get(testMethod).size() > 1) {
+                    TestMethod smellyMethod = new TestMethod(testMethod);
+                    smellyMethod.setSmell(true);
+                    smellyElementsSet.add(smellyMethod);
+                    putSmellyElement(testMethod);
+                    addScore(1);
+                }
+            }
         }
-
-        private int totalArguments;
-        private String name;
     }
-}
\ No newline at end of file
+}
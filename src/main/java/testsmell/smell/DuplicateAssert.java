@@ -1,16 +1,13 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
-import testsmell.SmellyElement;
+import testsmell.Assertion;
+import testsmell.SmellAnalysis;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -30,17 +27,23 @@ public class DuplicateAssert extends AbstractSmell {
         return "Duplicate Assert";
     }
 
+    /**
+     * Only assertions and failures can be duplicated
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        return List.of(TEST_METHOD_MARKERS, Set.of("assert", "fail"));
+    }
+
     /**
      * Analyze the test file for test methods that have multiple assert statements with the same explanation message
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        DuplicateAssert.ClassVisitor classVisitor;
-        classVisitor = new DuplicateAssert.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new DuplicateAssert.ClassVisitor();
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
         private MethodDeclaration currentMethod = null;
         TestMethod testMethod;
         List<String> assertMessage = new ArrayList<>();
@@ -48,76 +51,67 @@ public class DuplicateAssert extends AbstractSmell {
 
         // examine all methods in the test class
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 currentMethod = n;
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false); //default value is false (i.e. no smell)
-                super.visit(n, arg);
-
-                // if there are duplicate messages, then the smell exists
-                Set<String> set1 = new HashSet<>(assertMessage);
-                if (set1.size() < assertMessage.size()) {
-                    testMethod.setSmell(true);
-                    putSmellyElement(n.getName().toString());
-                    addScore(set1.size());
-                }
-
-                // if there are duplicate assert methods, then the smell exists
-                Set<String> set2 = new HashSet<>(assertMethod);
-                if (set2.size() < assertMethod.size()) {
-                    testMethod.setSmell(true);
-                    putSmellyElement(n.getName().toString());
-                }
+                return true;
+            }
+            return false;
+        }
 
-                smellyElementsSet.add(testMethod);
+        @Override
+        public void leave(MethodDeclaration n) {
+            // if there are duplicate messages, then the smell exists
+            Set<String> set1 = new HashSet<>(assertMessage);
+            if (set1.size() < assertMessage.size()) {
+                testMethod.setSmell(true);
+                putSmellyElement(n.getName().toString());
+                addScore(set1.size());
+            }
 
-                //reset values for next method
-                currentMethod = null;
-                assertMessage = new ArrayList<>();
-                assertMethod = new ArrayList<>();
+            // if there are duplicate assert methods, then the smell exists
+            Set<String> set2 = new HashSet<>(assertMethod);
+            if (set2.size() < assertMethod.size()) {
+                testMethod.setSmell(true);
+                putSmellyElement(n.getName().toString());
             }
+
+            smellyElementsSet.add(testMethod);
+
+            //reset values for next method
+            currentMethod = null;
+            assertMessage = new ArrayList<>();
+            assertMethod = new ArrayList<>();
         }
 
         // examine the methods being called within the test method
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
-            super.visit(n, arg);
+        public void leave(MethodCallExpr n) {
             if (currentMethod != null) {
-                // if the name of a method being called start with 'assert'
-                // if the name of a method being called is an assertion and has 3 parameters
-                if (n.getNameAsString().startsWith(("assertArrayEquals")) ||
-                        n.getNameAsString().startsWith(("assertEquals")) ||
-                        n.getNameAsString().startsWith(("assertNotSame")) ||
-                        n.getNameAsString().startsWith(("assertSame")) ||
-                        n.getNameAsString().startsWith(("assertThat"))) {
-                    assertMethod.add(n.toString());
-                    // assert method contains a message
-                    if (n.getArguments().size() == 3) {
-                        assertMessage.add(n.getArgument(0).toString());
-                    }
-
-                }
-                // if the name of a method being called is an assertion and has 2 parameters
-                else if (n.getNameAsString().equals("assertFalse") ||
-                        n.getNameAsString().equals("assertNotNull") ||
-                        n.getNameAsString().equals("assertNull") ||
-                        n.getNameAsString().equals("assertTrue")) {
+                Assertion assertion = context.getAssertion(n);
+                if (assertion != null && isChecked(assertion)) {
                     assertMethod.add(n.toString());
                     // assert method contains a message
-                    if (n.getArguments().size() == 2) {
-                        assertMessage.add(n.getArgument(0).toString());
-                    }
-                }
-                // if the name of a method being called is 'fail'
-                else if (n.getNameAsString().equals("fail")) {
-                    assertMethod.add(n.toString());
-                    // fail method contains a message
-                    if (n.getArguments().size() == 1) {
+                    if (assertion.getArity() == assertion.getFamily().getMessageArity()) {
                         assertMessage.add(n.getArgument(0).toString());
                     }
                 }
+            }
+        }
 
+        /**
+         * assertNotEquals and assertThrows are not checked for duplicates
+         */
+        private boolean isChecked(Assertion assertion) {
+            switch (assertion.getFamily()) {
+                case EQUALS:
+                    return !assertion.getBaseName().equals("assertNotEquals");
+                case THROWS:
+                    return false;
+                default:
+                    return true;
             }
         }
 
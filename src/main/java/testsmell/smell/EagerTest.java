@@ -1,35 +1,25 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.Modifier;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.EnumDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
+import testsmell.SmellAnalysis;
+import testsmell.ProductionFacts;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
 
 public class EagerTest extends AbstractSmell {
 
-    private static final String TEST_FILE = "Test";
-    private static final String PRODUCTION_FILE = "Production";
-    private String productionClassName;
-    private List<MethodDeclaration> productionMethods;
-    private int eagerCount;
-
     public EagerTest(Thresholds thresholds) {
         super(thresholds);
-        productionMethods = new ArrayList<>();
     }
 
     /**
@@ -41,97 +31,80 @@ public class EagerTest extends AbstractSmell {
     }
 
     /**
-     * Analyze the test file for test methods that exhibit the 'Eager Test' smell
+     * Only test methods are checked
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-
-        if (productionFileCompilationUnit == null)
-            throw new FileNotFoundException();
-
-        EagerTest.ClassVisitor classVisitor;
-
-        classVisitor = new EagerTest.ClassVisitor(PRODUCTION_FILE);
-        classVisitor.visit(productionFileCompilationUnit, null);
+    public List<Set<String>> getTriggers() {
+        return List.of(TEST_METHOD_MARKERS);
+    }
 
-        classVisitor = new EagerTest.ClassVisitor(TEST_FILE);
-        classVisitor.visit(testFileCompilationUnit, null);
-        eagerCount = classVisitor.overallEager;
+    /**
+     * The called methods are matched against the ones of the production class
+     */
+    @Override
+    public ProductionFacts.Collector newProductionFactsCollector() {
+        return new ProductionFileVisitor();
     }
 
-    public int getEagerCount() {
-        return eagerCount;
+    /**
+     * Analyze the test file for test methods that exhibit the 'Eager Test' smell
+     */
+    @Override
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new EagerTest.ClassVisitor();
     }
 
     /**
      * Visitor class
      */
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
+        private String productionClassName;
+        private ProductionFacts productionFacts;
         private MethodDeclaration currentMethod = null;
         TestMethod testMethod;
         private int eagerCount = 0;
-        private int overallEager = 0;
         private List<String> productionVariables = new ArrayList<>();
         private List<String> calledMethods = new ArrayList<>();
-        private String fileType;
-
-        public ClassVisitor(String type) {
-            fileType = type;
-        }
-
-        @Override
-        public void visit(ClassOrInterfaceDeclaration n, Void arg) {
-            if (Objects.equals(fileType, PRODUCTION_FILE)) {
-                productionClassName = n.getNameAsString();
-            }
-            super.visit(n, arg);
-        }
 
+        /**
+         * Receives the name and the public/protected methods of the production class
+         */
         @Override
-        public void visit(EnumDeclaration n, Void arg) {
-            if (Objects.equals(fileType, PRODUCTION_FILE)) {
-                productionClassName = n.getNameAsString();
-            }
-            super.visit(n, arg);
+        public void setProductionFacts(ProductionFacts facts) {
+            productionClassName = facts.getClassName();
+            productionFacts = facts;
         }
 
         /**
          * The purpose of this method is to 'visit' all test methods.
          */
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            // ensure that this method is only executed for the test file
-            if (Objects.equals(fileType, TEST_FILE)) {
-                if (Util.isValidTestMethod(n)) {
-                    currentMethod = n;
-                    testMethod = new TestMethod(currentMethod.getNameAsString());
-                    testMethod.setSmell(false); //default value is false (i.e. no smell)
-                    super.visit(n, arg);
-
-                    boolean isSmelly = eagerCount > thresholds.getEagerTest();
-                    if(isSmelly){
-                        putSmellyElement(n.getName().toString());
-                        addScore(eagerCount);
-                    }
-                    //the method has a smell if there is more than 1 call to production methods
-                    testMethod.setSmell(isSmelly);
-                    smellyElementsSet.add(testMethod);
-
-                    //reset values for next method
-                    currentMethod = null;
-                    overallEager += eagerCount;
-                    eagerCount = 0;
-                    productionVariables = new ArrayList<>();
-                    calledMethods = new ArrayList<>();
-                }
-            }else { //collect a list of all public/protected members of the production class
-                for (Modifier modifier : n.getModifiers()) {
-                    if (n.isPublic() || n.isProtected()) {
-                        productionMethods.add(n);
-                    }
-                }
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
+                currentMethod = n;
+                testMethod = new TestMethod(currentMethod.getNameAsString());
+                testMethod.setSmell(false); //default value is false (i.e. no smell)
+                return true;
+            }
+            return false;
+        }
 
+        @Override
+        public void leave(MethodDeclaration n) {
+            boolean isSmelly = eagerCount > thresholds.getEagerTest();
+            if(isSmelly){
+                putSmellyElement(n.getName().toString());
+                addScore(eagerCount);
             }
+            //the method has a smell if there is more than 1 call to production methods
+            testMethod.setSmell(isSmelly);
+            smellyElementsSet.add(testMethod);
+
+            //reset values for next method
+            currentMethod = null;
+            eagerCount = 0;
+            productionVariables = new ArrayList<>();
+            calledMethods = new ArrayList<>();
         }
 
 
@@ -146,11 +119,10 @@ public class EagerTest extends AbstractSmell {
          * if the scope is a variable that has been declared to be of type of the production class (i.e. contained in the 'productionVariables' list).
          */
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
+        public boolean visit(MethodCallExpr n) {
             NameExpr nameExpr = null;
             if (currentMethod != null) {
-                if (productionMethods.stream().anyMatch(i -> i.getNameAsString().equals(n.getNameAsString()) &&
-                        i.getParameters().size() == n.getArguments().size())) {
+                if (productionFacts.hasMethod(n.getNameAsString(), n.getArguments().size())) {
                     eagerCount++;
                     calledMethods.add(n.getNameAsString());
                 } else {
@@ -180,7 +152,7 @@ public class EagerTest extends AbstractSmell {
                     }
                 }
             }
-            super.visit(n, arg);
+            return true;
         }
 
         private NameExpr tempNameExpr;
@@ -200,13 +172,35 @@ public class EagerTest extends AbstractSmell {
 
 
         @Override
-        public void visit(VariableDeclarator n, Void arg) {
-            if (Objects.equals(fileType, TEST_FILE)) {
-                if (productionClassName.equals(n.getType().asString())) {
-                    productionVariables.add(n.getNameAsString());
-                }
+        public boolean visit(VariableDeclarator n) {
+            if (productionClassName.equals(n.getType().asString())) {
+                productionVariables.add(n.getNameAsString());
+            }
+            return true;
+        }
+
+    }
+
+    private static class ProductionFileVisitor extends ProductionFacts.Collector {
+        @Override
+        public boolean visit(ClassOrInterfaceDeclaration n) {
+            setClassName(n.getNameAsString());
+            return true;
+        }
+
+        @Override
+        public boolean visit(EnumDeclaration n) {
+            setClassName(n.getNameAsString());
+            return true;
+        }
+
+        @Override
+        public boolean visit(MethodDeclaration n) {
+            //collect a list of all public/protected members of the production class
+            if (n.isPublic() || n.isProtected()) {
+                addMethod(n);
             }
-            super.visit(n, arg);
+            return false;
         }
     }
-}
\ No newline at end of file
+}
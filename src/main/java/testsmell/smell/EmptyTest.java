@@ -1,14 +1,12 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
+import testsmell.SmellAnalysis;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
-
-import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.Set;
 
 /**
  * This class checks if a test method is empty (i.e. the method does not contain statements in its body)
@@ -28,28 +26,34 @@ public class EmptyTest extends AbstractSmell {
         return "EmptyTest";
     }
 
+    /**
+     * Only test methods are checked
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        return List.of(TEST_METHOD_MARKERS);
+    }
+
     /**
      * Analyze the test file for test methods that are empty (i.e. no method body)
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        EmptyTest.ClassVisitor classVisitor;
-        classVisitor = new EmptyTest.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new EmptyTest.ClassVisitor();
     }
 
     /**
      * Visitor class
      */
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
         TestMethod testMethod;
 
         /**
          * The purpose of this method is to 'visit' all test methods in the test file
          */
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false); //default value is false (i.e. no smell)
                 //method should not be abstract
@@ -66,6 +70,7 @@ public class EmptyTest extends AbstractSmell {
                 }
                 smellyElementsSet.add(testMethod);
             }
+            return false;
         }
     }
-}
\ No newline at end of file
+}
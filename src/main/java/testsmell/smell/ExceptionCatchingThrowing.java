@@ -1,17 +1,14 @@
-
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.stmt.CatchClause;
 import com.github.javaparser.ast.stmt.ThrowStmt;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
+import testsmell.SmellAnalysis;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
-
-import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.Set;
 
 /*
 This class checks if test methods in the class either catch or throw exceptions. Use Junit's exception handling to automatically pass/fail the test
@@ -31,17 +28,25 @@ public class ExceptionCatchingThrowing extends AbstractSmell {
         return "Exception Catching Throwing";
     }
 
+    /**
+     * Thrown and caught exceptions are counted
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        if (thresholds.getExceptionCatchingThrowing() < 0)
+            return List.of(TEST_METHOD_MARKERS);
+        return List.of(TEST_METHOD_MARKERS, Set.of("throw", "catch"));
+    }
+
     /**
      * Analyze the test file for test methods that have exception handling
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        ExceptionCatchingThrowing.ClassVisitor classVisitor;
-        classVisitor = new ExceptionCatchingThrowing.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new ExceptionCatchingThrowing.ClassVisitor();
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
         private MethodDeclaration currentMethod = null;
         private int exceptionCount = 0;
         TestMethod testMethod;
@@ -49,46 +54,46 @@ public class ExceptionCatchingThrowing extends AbstractSmell {
 
         // examine all methods in the test class
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 currentMethod = n;
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false); //default value is false (i.e. no smell)
-                super.visit(n, arg);
+                return true;
+            }
+            return false;
+        }
 
-                if (n.getThrownExceptions().size() >= 1)
-                    exceptionCount++;
+        @Override
+        public void leave(MethodDeclaration n) {
+            if (n.getThrownExceptions().size() >= 1)
+                exceptionCount++;
 
-                boolean isSmelly = exceptionCount > thresholds.getExceptionCatchingThrowing();
-                if(isSmelly) {
-                    putSmellyElement(n.getName().toString());
-                    addScore(exceptionCount);
-                }
-                testMethod.setSmell(isSmelly);
-                testMethod.addDataItem("ExceptionCount", String.valueOf(exceptionCount));
+            boolean isSmelly = exceptionCount > thresholds.getExceptionCatchingThrowing();
+            if(isSmelly) {
+                putSmellyElement(n.getName().toString());
+                addScore(exceptionCount);
+            }
+            testMethod.setSmell(isSmelly);
+            testMethod.addDataItem("ExceptionCount", String.valueOf(exceptionCount));
 
-                smellyElementsSet.add(testMethod);
+            smellyElementsSet.add(testMethod);
 
-                //reset values for next method
-                currentMethod = null;
-                exceptionCount = 0;
-            }
+            //reset values for next method
+            currentMethod = null;
+            exceptionCount = 0;
         }
 
 
         @Override
-        public void visit(ThrowStmt n, Void arg) {
-            super.visit(n, arg);
-
+        public void leave(ThrowStmt n) {
             if (currentMethod != null) {
                 exceptionCount++;
             }
         }
 
         @Override
-        public void visit(CatchClause n, Void arg) {
-            super.visit(n, arg);
-
+        public void leave(CatchClause n) {
             if (currentMethod != null) {
                 exceptionCount++;
             }
@@ -1,42 +1,28 @@
 package testsmell.smell;
-import com.github.javaparser.StaticJavaParser;
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.BodyDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.ast.nodeTypes.NodeWithArguments;
-import com.github.javaparser.ast.stmt.ExplicitConstructorInvocationStmt;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import com.github.javaparser.resolution.declarations.ResolvedValueDeclaration;
 import testsmell.AbstractSmell;
+import testsmell.SmellAnalysis;
+import testsmell.TestFileContext;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
-import com.github.javaparser.resolution.UnsolvedSymbolException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileNotFoundException;
 import java.util.*;
-import java.util.logging.Level;
 
 public class GeneralFixture extends AbstractSmell {
 
-    private List<MethodDeclaration> methodList;
-    private MethodDeclaration setupMethod;
-    private List<FieldDeclaration> fieldList;
-    private Set<String> setupFields;
-
     private static final Logger log = LoggerFactory.getLogger(GeneralFixture.class);
 
     public GeneralFixture(Thresholds thresholds) {
         super(thresholds);
-        methodList = new ArrayList<>();
-        fieldList = new ArrayList<>();
-        setupFields = new HashSet<>();
-
     }
 
     @Override
@@ -44,37 +30,49 @@ public class GeneralFixture extends AbstractSmell {
         return "General Fixture";
     }
 
+    /**
+     * Only the fields initialized by a setup method are fixtures
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        return List.of(TEST_METHOD_MARKERS, SETUP_METHOD_MARKERS);
+    }
+
+    /**
+     * The targets of the setup assignments are resolved to tell the fields from the local variables
+     */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit,
-                            CompilationUnit productionFileCompilationUnit,
-                            String testFileName,
-                            String productionFileName) throws FileNotFoundException {
-        ClassVisitor classVisitor = new ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public boolean resolvesSymbols() {
+        return true;
+    }
+
+    @Override
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new GeneralFixture.ClassVisitor();
+    }
+
+    /**
+     * Collects the fields initialized by the setup method and not handed over to other calls. Once the resolution
+     * budget of the file is used up, an assignment target is taken for one of the given fields from its name.
+     */
+    private static Set<String> collectSetupFields(MethodDeclaration setupMethod, Set<String> fieldNames,
+                                                  TestFileContext context) {
+        Set<String> setupFields = new HashSet<>();
         if (setupMethod != null) {
-            setupFields.clear();
-            setupMethod.findAll(AssignExpr.class).forEach(assign -> {
+            context.getAssignments(setupMethod).forEach(assign -> {
                 Expression target = assign.getTarget();
-                try {
-                    ResolvedValueDeclaration decl = null;
-                    if (target.isFieldAccessExpr()) {
-                        decl = target.asFieldAccessExpr().resolve();
-                    } else if (target.isNameExpr()) {
-                        decl = target.asNameExpr().resolve();
-                    }
-                    if (decl != null && decl.isField()) {
-                        setupFields.add(decl.getName());
+                ResolvedValueDeclaration decl = context.getResolutions().resolveValue(target);
+                if (decl != null && decl.isField()) {
+                    setupFields.add(decl.getName());
+                } else if (decl == null && context.getResolutions().isExhausted()) {
+                    String name = fieldNameOf(target, setupMethod, fieldNames);
+                    if (name != null) {
+                        setupFields.add(name);
                     }
-                } catch (Exception e) {
-                    log.error("Impossibile risolvere il simbolo {}", target, e);
                 }
             });
             setupMethod.getBody().ifPresent(body -> {
-                List<NodeWithArguments<?>> calls = new ArrayList<>();
-                calls.addAll(body.findAll(MethodCallExpr.class));
-                calls.addAll(body.findAll(ObjectCreationExpr.class));
-                calls.addAll(body.findAll(ExplicitConstructorInvocationStmt.class));
-                for (NodeWithArguments<?> call : calls) {
+                for (NodeWithArguments<?> call : context.getCallSites(body)) {
                     for (Expression arg : call.getArguments()) {
                         try {
                             String name = null;
@@ -111,12 +109,29 @@ public class GeneralFixture extends AbstractSmell {
 
 
         }
-        for (MethodDeclaration method : methodList) {
-            classVisitor.visit(method, null);
-        }
+        return setupFields;
     }
 
 
+    /**
+     * Returns the field the assignment target names, as told by the syntax: this.name, or a name that is neither a
+     * parameter nor a local variable of the setup method
+     */
+    private static String fieldNameOf(Expression target, MethodDeclaration setupMethod, Set<String> fieldNames) {
+        String name = null;
+        if (target.isFieldAccessExpr() && target.asFieldAccessExpr().getScope().isThisExpr()) {
+            name = target.asFieldAccessExpr().getNameAsString();
+        } else if (target.isNameExpr()) {
+            name = target.asNameExpr().getNameAsString();
+            String local = name;
+            if (setupMethod.getParameterByName(local).isPresent()
+                    || setupMethod.findFirst(VariableDeclarator.class, v -> v.getNameAsString().equals(local)).isPresent()) {
+                return null;
+            }
+        }
+        return name != null && fieldNames.contains(name) ? name : null;
+    }
+
     private static String extractReceiverName(Expression scope) {
         Expression e = scope;
         while (e != null) {
@@ -154,18 +169,37 @@ public class GeneralFixture extends AbstractSmell {
     }
 
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    /**
+     * The setup fields are only known once the whole class has been seen, so the references met inside the
+     * test methods are recorded during the walk and replayed against the setup fields at the end of it.
+     */
+    private class ClassVisitor extends SmellAnalysis {
+        private final List<MethodDeclaration> methodList = new ArrayList<>();
+        private MethodDeclaration setupMethod;
+        private final List<FieldDeclaration> fieldList = new ArrayList<>();
+        private Set<String> setupFields = new HashSet<>();
         private MethodDeclaration currentMethod;
         private Set<String> fixtureCount = new HashSet<>();
+        private final Set<MethodDeclaration> testMethods = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<Runnable> events = new ArrayList<>();
+        private MethodDeclaration recordedMethod;
+        private boolean deferred;
+        private int classDepth = 0;
+
         @Override
-        public void visit(ClassOrInterfaceDeclaration n, Void arg) {
+        public boolean visit(ClassOrInterfaceDeclaration n) {
+            // only the top level classes are scanned for test and setup methods
+            if (classDepth > 0 || recordedMethod != null) {
+                return false;
+            }
             for (BodyDeclaration<?> member : n.getMembers()) {
                 if (member instanceof MethodDeclaration) {
                     MethodDeclaration m = (MethodDeclaration) member;
-                    if (Util.isValidTestMethod(m)) {
+                    if (context.isTestMethod(m)) {
                         methodList.add(m);
+                        testMethods.add(m);
                     }
-                    if (Util.isValidSetupMethod(m) && m.getBody().isPresent()) {
+                    if (context.isSetupMethod(m) && m.getBody().isPresent()) {
                         setupMethod = m;
                     }
                 }
@@ -173,13 +207,37 @@ public class GeneralFixture extends AbstractSmell {
                     fieldList.add((FieldDeclaration) member);
                 }
             }
+            classDepth++;
+            return true;
+        }
+
+        @Override
+        public void leave(ClassOrInterfaceDeclaration n) {
+            classDepth--;
+        }
+
+        @Override
+        public boolean visit(MethodDeclaration n) {
+            if (recordedMethod == null) {
+                if (testMethods.contains(n)) {
+                    deferred = true;
+                } else if (classDepth == 0 && context.isTestMethod(n)) {
+                    // a test method outside of any class is checked right away, before the setup fields are known
+                    deferred = false;
+                } else {
+                    return false;
+                }
+                recordedMethod = n;
+            } else if (!context.isTestMethod(n)) {
+                return false;
+            }
+            record(() -> currentMethod = n);
+            return true;
         }
 
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
-                currentMethod = n;
-                super.visit(n, arg);
+        public void leave(MethodDeclaration n) {
+            record(() -> {
                 TestMethod testMethod = new TestMethod(n.getNameAsString());
                 boolean isSmelly = fixtureCount.size() != setupFields.size();
                 if(isSmelly) {
@@ -190,29 +248,56 @@ public class GeneralFixture extends AbstractSmell {
                 smellyElementsSet.add(testMethod);
                 fixtureCount.clear();
                 currentMethod = null;
+            });
+            if (n == recordedMethod) {
+                recordedMethod = null;
             }
         }
 
         @Override
-        public void visit(NameExpr n, Void arg) {
-            if (currentMethod != null) {
+        public boolean visit(NameExpr n) {
+            if (recordedMethod != null) {
                 String name = n.getNameAsString();
-                if (setupFields.contains(name)) {
-                    fixtureCount.add(name);
-                }
+                record(() -> countFixture(name));
             }
-            super.visit(n, arg);
+            return true;
         }
 
         @Override
-        public void visit(FieldAccessExpr n, Void arg) {
-            if (currentMethod != null && n.getScope().isThisExpr()) {
+        public boolean visit(FieldAccessExpr n) {
+            if (recordedMethod != null && n.getScope().isThisExpr()) {
                 String name = n.getNameAsString();
+                record(() -> countFixture(name));
+            }
+            return true;
+        }
+
+        @Override
+        public void end() {
+            Set<String> fieldNames = new HashSet<>();
+            for (FieldDeclaration field : fieldList) {
+                field.getVariables().forEach(variable -> fieldNames.add(variable.getNameAsString()));
+            }
+            setupFields = collectSetupFields(setupMethod, fieldNames, context);
+            for (Runnable event : events) {
+                event.run();
+            }
+        }
+
+        private void record(Runnable event) {
+            if (deferred) {
+                events.add(event);
+            } else {
+                event.run();
+            }
+        }
+
+        private void countFixture(String name) {
+            if (currentMethod != null) {
                 if (setupFields.contains(name)) {
                     fixtureCount.add(name);
                 }
             }
-            super.visit(n, arg);
         }
     }
 }
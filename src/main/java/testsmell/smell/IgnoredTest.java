@@ -1,16 +1,15 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Modifier;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
+import testsmell.SmellAnalysis;
 import testsmell.TestClass;
 import testsmell.TestMethod;
 import thresholds.Thresholds;
-
-import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.Set;
 
 public class IgnoredTest extends AbstractSmell {
 
@@ -23,28 +22,33 @@ public class IgnoredTest extends AbstractSmell {
         return "Ignored Test";
     }
 
+    /**
+     * Ignored classes and methods and JUnit 3 tests that are not public are reported
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        return List.of(Set.of("ignore", "test"));
+    }
+
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit,
-                            CompilationUnit productionFileCompilationUnit,
-                            String testFileName,
-                            String productionFileName) throws FileNotFoundException {
-        new ClassVisitor().visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new ClassVisitor();
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
         @Override
-        public void visit(ClassOrInterfaceDeclaration n, Void arg) {
+        public boolean visit(ClassOrInterfaceDeclaration n) {
             // Se la classe è annotata @Ignore
             if (n.getAnnotationByName("Ignore").isPresent()) {
                 TestClass testClass = new TestClass(n.getNameAsString());
                 testClass.setHasSmell(true);
                 smellyElementsSet.add(testClass);
             }
-            super.visit(n, arg);
+            return true;
         }
 
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
+        public boolean visit(MethodDeclaration n) {
             // JUnit 4: @Test @Ignore
             if (n.getAnnotationByName("Test").isPresent()
                     && n.getAnnotationByName("Ignore").isPresent()) {
@@ -53,7 +57,7 @@ public class IgnoredTest extends AbstractSmell {
                 putSmellyElement(n.getName().toString());
                 addScore(1);
                 smellyElementsSet.add(tm);
-                return;
+                return false;
             }
 
             // JUnit 3: metodi che iniziano per 'test' non-public
@@ -62,10 +66,10 @@ public class IgnoredTest extends AbstractSmell {
                 TestMethod tm = new TestMethod(n.getNameAsString());
                 tm.setSmell(true);
                 smellyElementsSet.add(tm);
-                return;
+                return false;
             }
 
-            super.visit(n, arg);
+            return true;
         }
     }
 }
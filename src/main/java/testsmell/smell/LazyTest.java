@@ -1,37 +1,28 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.Modifier;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.EnumDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
-import testsmell.SmellyElement;
+import testsmell.SmellAnalysis;
+import testsmell.ProductionFacts;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 public class LazyTest extends AbstractSmell {
-    private static final String TEST_FILE = "Test";
-    private static final String PRODUCTION_FILE = "Production";
-    private String productionClassName;
-    private List<MethodUsage> calledProductionMethods;
-    private List<MethodDeclaration> productionMethods;
 
     public LazyTest(Thresholds thresholds) {
         super(thresholds);
-        productionMethods = new ArrayList<>();
-        calledProductionMethods = new ArrayList<>();
     }
 
     /**
@@ -43,34 +34,27 @@ public class LazyTest extends AbstractSmell {
     }
 
     /**
-     * Analyze the test file for test methods that exhibit the 'Lazy Test' smell
+     * Only test methods are checked
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-
-        if (productionFileCompilationUnit == null)
-            throw new FileNotFoundException();
-
-        LazyTest.ClassVisitor classVisitor;
-
-        classVisitor = new LazyTest.ClassVisitor(PRODUCTION_FILE);
-        classVisitor.visit(productionFileCompilationUnit, null);
+    public List<Set<String>> getTriggers() {
+        return List.of(TEST_METHOD_MARKERS);
+    }
 
-        classVisitor = new LazyTest.ClassVisitor(TEST_FILE);
-        classVisitor.visit(testFileCompilationUnit, null);
+    /**
+     * The called methods are matched against the ones of the production class
+     */
+    @Override
+    public ProductionFacts.Collector newProductionFactsCollector() {
+        return new ProductionFileVisitor();
+    }
 
-        for (MethodUsage method : calledProductionMethods) {
-            List<MethodUsage> s = calledProductionMethods.stream().filter(x -> x.getProductionMethod().equals(method.getProductionMethod())).collect(Collectors.toList());
-            if (s.size() > 1) {
-                if (s.stream().filter(y -> y.getTestMethod().equals(method.getTestMethod())).count() != s.size()) {
-                    // If counts don not match, this production method is used by multiple test methods. Hence, there is a Lazy Test smell.
-                    // If the counts were equal it means that the production method is only used (called from) inside one test method
-                    TestMethod testClass = new TestMethod(method.getTestMethod());
-                    testClass.setSmell(true);
-                    smellyElementsSet.add(testClass);
-                }
-            }
-        }
+    /**
+     * Analyze the test file for test methods that exhibit the 'Lazy Test' smell
+     */
+    @Override
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new LazyTest.ClassVisitor();
     }
 
     private class MethodUsage {
@@ -93,57 +77,46 @@ public class LazyTest extends AbstractSmell {
     /**
      * Visitor class
      */
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
+        private String productionClassName;
+        private final List<MethodUsage> calledProductionMethods = new ArrayList<>();
+        /**
+         * The test methods calling each production method, indexed as the calls are found
+         */
+        private final Map<String, Set<String>> callingTestMethods = new HashMap<>();
+        private ProductionFacts productionFacts;
         private MethodDeclaration currentMethod = null;
         TestMethod testMethod;
         private List<String> productionVariables = new ArrayList<>();
-        private String fileType;
-
-        public ClassVisitor(String type) {
-            fileType = type;
-        }
-
-        @Override
-        public void visit(ClassOrInterfaceDeclaration n, Void arg) {
-            if (Objects.equals(fileType, PRODUCTION_FILE)) {
-                productionClassName = n.getNameAsString();
-            }
-            super.visit(n, arg);
-        }
 
+        /**
+         * Receives the name and the public/protected methods of the production class
+         */
         @Override
-        public void visit(EnumDeclaration n, Void arg) {
-            if (Objects.equals(fileType, PRODUCTION_FILE)) {
-                productionClassName = n.getNameAsString();
-            }
-            super.visit(n, arg);
+        public void setProductionFacts(ProductionFacts facts) {
+            productionClassName = facts.getClassName();
+            productionFacts = facts;
         }
 
         /**
          * The purpose of this method is to 'visit' all test methods.
          */
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            // ensure that this method is only executed for the test file
-            if (Objects.equals(fileType, TEST_FILE)) {
-                if (Util.isValidTestMethod(n)) {
-                    currentMethod = n;
-                    testMethod = new TestMethod(currentMethod.getNameAsString());
-                    testMethod.setSmell(false); //default value is false (i.e. no smell)
-                    super.visit(n, arg);
-
-                    //reset values for next method
-                    currentMethod = null;
-                    productionVariables = new ArrayList<>();
-                }
-            } else { //collect a list of all public/protected members of the production class
-                for (Modifier modifier : n.getModifiers()) {
-                    if (modifier.getKeyword().asString().equalsIgnoreCase("public") || modifier.getKeyword().asString().equalsIgnoreCase("protected")) {
-                        productionMethods.add(n);
-                    }
-                }
-
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
+                currentMethod = n;
+                testMethod = new TestMethod(currentMethod.getNameAsString());
+                testMethod.setSmell(false); //default value is false (i.e. no smell)
+                return true;
             }
+            return false;
+        }
+
+        @Override
+        public void leave(MethodDeclaration n) {
+            //reset values for next method
+            currentMethod = null;
+            productionVariables = new ArrayList<>();
         }
 
 
@@ -158,12 +131,10 @@ public class LazyTest extends AbstractSmell {
          * if the scope is a variable that has been declared to be of type of the production class (i.e. contained in the 'productionVariables' list).
          */
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
-            super.visit(n, arg);
+        public void leave(MethodCallExpr n) {
             if (currentMethod != null) {
-                if (productionMethods.stream().anyMatch(i -> i.getNameAsString().equals(n.getNameAsString()) &&
-                        i.getParameters().size() == n.getArguments().size())) {
-                    calledProductionMethods.add(new MethodUsage(currentMethod.getNameAsString(), n.getNameAsString()));
+                if (productionFacts.hasMethod(n.getNameAsString(), n.getArguments().size())) {
+                    addUsage(n);
                 } else {
                     if (n.getScope().isPresent()) {
                         if (n.getScope().get() instanceof NameExpr) {
@@ -172,7 +143,7 @@ public class LazyTest extends AbstractSmell {
                             ///if the scope matches a variable which, in turn, is of type of the production class
                             if (((NameExpr) n.getScope().get()).getNameAsString().equals(productionClassName) ||
                                     productionVariables.contains(((NameExpr) n.getScope().get()).getNameAsString())) {
-                                calledProductionMethods.add(new MethodUsage(currentMethod.getNameAsString(), n.getNameAsString()));
+                                addUsage(n);
                             }
                         }
                     }
@@ -180,6 +151,12 @@ public class LazyTest extends AbstractSmell {
             }
         }
 
+        private void addUsage(MethodCallExpr n) {
+            calledProductionMethods.add(new MethodUsage(currentMethod.getNameAsString(), n.getNameAsString()));
+            callingTestMethods.computeIfAbsent(n.getNameAsString(), k -> new HashSet<>())
+                    .add(currentMethod.getNameAsString());
+        }
+
 //        /**
 //         * The purpose of this method is to capture the names of all variables, declared in the method body, that are of type of the production class.
 //         * The variable is captured as and when the code statement is parsed/evaluated by the parser
@@ -197,13 +174,48 @@ public class LazyTest extends AbstractSmell {
 //        }
 
         @Override
-        public void visit(VariableDeclarator n, Void arg) {
-            if (Objects.equals(fileType, TEST_FILE)) {
-                if (productionClassName.equals(n.getType().asString())) {
-                    productionVariables.add(n.getNameAsString());
+        public boolean visit(VariableDeclarator n) {
+            if (productionClassName.equals(n.getType().asString())) {
+                productionVariables.add(n.getNameAsString());
+            }
+            return true;
+        }
+
+        @Override
+        public void end() {
+            for (MethodUsage method : calledProductionMethods) {
+                // If the production method is used by multiple test methods, there is a Lazy Test smell.
+                // Otherwise the production method is only used (called from) inside one test method
+                if (callingTestMethods.get(method.getProductionMethod()).size() > 1) {
+                    TestMethod testClass = new TestMethod(method.getTestMethod());
+                    testClass.setSmell(true);
+                    smellyElementsSet.add(testClass);
                 }
             }
-            super.visit(n, arg);
+        }
+
+    }
+
+    private static class ProductionFileVisitor extends ProductionFacts.Collector {
+        @Override
+        public boolean visit(ClassOrInterfaceDeclaration n) {
+            setClassName(n.getNameAsString());
+            return true;
+        }
+
+        @Override
+        public boolean visit(EnumDeclaration n) {
+            setClassName(n.getNameAsString());
+            return true;
+        }
+
+        @Override
+        public boolean visit(MethodDeclaration n) {
+            //collect a list of all public/protected members of the production class
+            if (n.isPublic() || n.isProtected()) {
+                addMethod(n);
+            }
+            return false;
         }
     }
 }
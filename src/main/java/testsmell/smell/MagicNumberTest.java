@@ -1,15 +1,14 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.*;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
+import testsmell.Assertion;
+import testsmell.SmellAnalysis;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
-
-import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.Set;
 
 public class MagicNumberTest extends AbstractSmell {
 
@@ -25,17 +24,25 @@ public class MagicNumberTest extends AbstractSmell {
         return "Magic Number Test";
     }
 
+    /**
+     * Numeric literals in assertions are counted, unless the threshold makes a test without them smelly
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        if (thresholds.getMagicNumberTest() < 1)
+            return List.of(TEST_METHOD_MARKERS);
+        return List.of(TEST_METHOD_MARKERS, Set.of("assert"));
+    }
+
     /**
      * Analyze the test file for test methods that have magic numbers in as parameters in the assert methods
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        MagicNumberTest.ClassVisitor classVisitor;
-        classVisitor = new MagicNumberTest.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new MagicNumberTest.ClassVisitor();
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
         private MethodDeclaration currentMethod = null;
         private MagicNumberTest magicNumberTest;
         TestMethod testMethod;
@@ -43,45 +50,50 @@ public class MagicNumberTest extends AbstractSmell {
 
         // examine all methods in the test class
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 currentMethod = n;
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false); //default value is false (i.e. no smell)
-                super.visit(n, arg);
-                testMethod.setSmell(magicCount >= thresholds.getMagicNumberTest());
-                if(testMethod.isSmelly()){
-                    putSmellyElement(n.getName().toString());
-                    addScore(magicCount);
-                }
-                testMethod.addDataItem("MagicNumberCount", String.valueOf(magicCount));
-                smellyElementsSet.add(testMethod);
-                //reset values for next method
-                currentMethod = null;
-                magicCount = 0;
+                return true;
             }
+            return false;
+        }
+
+        @Override
+        public void leave(MethodDeclaration n) {
+            testMethod.setSmell(magicCount >= thresholds.getMagicNumberTest());
+            if(testMethod.isSmelly()){
+                putSmellyElement(n.getName().toString());
+                addScore(magicCount);
+            }
+            testMethod.addDataItem("MagicNumberCount", String.valueOf(magicCount));
+            smellyElementsSet.add(testMethod);
+            //reset values for next method
+            currentMethod = null;
+            magicCount = 0;
         }
 
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
-            super.visit(n, arg);
-            if (currentMethod != null && isAssertMethod(n.getNameAsString())) {
+        public void leave(MethodCallExpr n) {
+            Assertion assertion = currentMethod != null ? context.getAssertion(n) : null;
+            if (assertion != null && isAssertMethod(assertion)) {
                 for (Expression argument : n.getArguments()) {
                     countMagicNumbers(argument);
                 }
             }
         }
 
-        private boolean isAssertMethod(String name) {
-            return name.startsWith("assertArrayEquals") ||
-                    name.startsWith("assertEquals") ||
-                    name.startsWith("assertNotSame") ||
-                    name.startsWith("assertSame") ||
-                    name.startsWith("assertThat") ||
-                    name.equals("assertNotNull") ||
-                    name.equals("assertNull") ||
-                    name.equals("assertTrue") ||
-                    name.equals("assertFalse");
+        private boolean isAssertMethod(Assertion assertion) {
+            switch (assertion.getFamily()) {
+                case EQUALS:
+                    return !assertion.getBaseName().equals("assertNotEquals");
+                case THROWS:
+                case FAIL:
+                    return false;
+                default:
+                    return true;
+            }
         }
 
 
@@ -1,16 +1,15 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.*;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
+import testsmell.Assertion;
+import testsmell.SmellAnalysis;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Detects the "Magic String Test" smell:
@@ -27,52 +26,60 @@ public class MagicStringTest extends AbstractSmell {
         return "Magic String Test";
     }
 
+    /**
+     * String literals in assertions are counted, unless the threshold makes a test without them smelly
+     */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit,
-                            CompilationUnit productionFileCompilationUnit,
-                            String testFileName,
-                            String productionFileName) throws FileNotFoundException {
-        ClassVisitor classVisitor = new ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public List<Set<String>> getTriggers() {
+        if (thresholds.getMagicStringTest() < 1)
+            return List.of(TEST_METHOD_MARKERS);
+        return List.of(TEST_METHOD_MARKERS, Set.of("assert"));
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    @Override
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new ClassVisitor();
+    }
+
+    private class ClassVisitor extends SmellAnalysis {
         private MethodDeclaration currentMethod = null;
         private TestMethod testMethod;
         private int magicStringCount = 0;
 
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 currentMethod = n;
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false); // default
-
-                super.visit(n, arg);
-
-                // decide smell by threshold
-                testMethod.setSmell(magicStringCount >= thresholds.getMagicStringTest());
-                testMethod.addDataItem("MagicStringCount", String.valueOf(magicStringCount));
-                smellyElementsSet.add(testMethod);
-                if (testMethod.isSmelly()) {
-                    putSmellyElement(n.getNameAsString());
-                    addScore(1);
-                }
-
-                // reset for next method
-                currentMethod = null;
-                magicStringCount = 0;
+                return true;
             }
+            return false;
         }
 
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
-            super.visit(n, arg);
+        public void leave(MethodDeclaration n) {
+            // decide smell by threshold
+            testMethod.setSmell(magicStringCount >= thresholds.getMagicStringTest());
+            testMethod.addDataItem("MagicStringCount", String.valueOf(magicStringCount));
+            smellyElementsSet.add(testMethod);
+            if (testMethod.isSmelly()) {
+                putSmellyElement(n.getNameAsString());
+                addScore(1);
+            }
+
+            // reset for next method
+            currentMethod = null;
+            magicStringCount = 0;
+        }
 
+        @Override
+        public void leave(MethodCallExpr n) {
             if (currentMethod == null) return;
 
             String name = n.getNameAsString();
-            boolean isJUnitAssert = isAssertOfInterest(name);
+            Assertion assertion = context.getAssertion(n);
+            boolean isJUnitAssert = assertion != null && isAssertOfInterest(assertion);
             boolean isAssertJ = isInAssertJChain(n) && !isAssertJDescriptionMethod(name);
 
             if (!(isJUnitAssert || isAssertJ)) return;
@@ -82,9 +89,8 @@ public class MagicStringTest extends AbstractSmell {
 
             int startIndex = 0;
             if(isJUnitAssert) {
-                if ((args.size() >= 3 && supportsMessageOverloadHead_3plus(name) && isStringLike(args.get(0))) || (
-                        (args.size() >= 2 && supportsMessageOverloadHead_2args(name) && isStringLike(args.get(0)))
-                )) {
+                if (assertion.getFamily() != Assertion.Family.THAT
+                        && args.size() >= assertion.getFamily().getMessageArity() && isStringLike(args.get(0))) {
                     // questo lo faccio perchè ci sono test come G04/03 che ci sono test con messaggi con due argomenti e se non
                     //mettessi questo l'algoritmo partirebbe da 0 contandomi come smell i messaggi.
                     startIndex = 1;
@@ -115,33 +121,19 @@ public class MagicStringTest extends AbstractSmell {
         }
 
 
-        private boolean supportsMessageOverloadHead_2args(String name) {
-            return name.startsWith("assertTrue")
-                    || name.startsWith("assertFalse")
-                    || name.startsWith("assertNull")
-                    || name.startsWith("assertNotNull");
-        }
-
-        private boolean isAssertOfInterest(String name) {
-            return name.startsWith("assertEquals")
-                    || name.startsWith("assertNotEquals")
-                    || name.startsWith("assertSame")
-                    || name.startsWith("assertNotSame")
-                    || name.startsWith("assertArrayEquals")
-                    || name.equals("assertThat")
-                    || name.equals("assertTrue")
-                    || name.equals("assertFalse")
-                    || name.equals("assertNull")
-                    || name.equals("assertNotNull");
-        }
-
-        /** Queste assert hanno overload con messaggio/raison come primo argomento. */
-        private boolean supportsMessageOverloadHead_3plus(String name) {
-            return name.startsWith("assertEquals")
-                    || name.startsWith("assertNotEquals")
-                    || name.startsWith("assertSame")
-                    || name.startsWith("assertNotSame")
-                    || name.startsWith("assertArrayEquals");
+        /** Le assert JUnit controllate; tranne assertThat, hanno overload con messaggio come primo argomento. */
+        private boolean isAssertOfInterest(Assertion assertion) {
+            switch (assertion.getFamily()) {
+                case EQUALS:
+                case SAME:
+                    return true;
+                case THAT:
+                case CONDITION:
+                case NULL:
+                    return assertion.isExact();
+                default:
+                    return false;
+            }
         }
 
         /** Heuristica: l'argomento è "messaggio" se contiene literal string (anche concatenazioni). */
@@ -1,20 +1,17 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.expr.VariableDeclarationExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
-import testsmell.SmellyElement;
+import testsmell.SmellAnalysis;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 /**
  * When a test uses external resources, such as a file containing test data, the test is no longer self contained.
@@ -37,17 +34,26 @@ public class MysteryGuest extends AbstractSmell {
         return "Mystery Guest";
     }
 
+    /**
+     * Variables of the external resource types are counted
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        if (thresholds.getMysteryGuest() < 0)
+            return List.of(TEST_METHOD_MARKERS);
+        return List.of(TEST_METHOD_MARKERS, Set.of("file", "sqliteopenhelper", "sqlitedatabase", "cursor", "context",
+                "httpclient", "httpresponse", "httppost", "httpget", "soapobject"));
+    }
+
     /**
      * Analyze the test file for test methods that use external resources
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        MysteryGuest.ClassVisitor classVisitor;
-        classVisitor = new MysteryGuest.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new MysteryGuest.ClassVisitor();
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
         private List<String> mysteryTypes = new ArrayList<>(
                 Arrays.asList(
                         "File",
@@ -94,34 +100,37 @@ public class MysteryGuest extends AbstractSmell {
 
         // examine all methods in the test class
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 currentMethod = n;
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false); //default value is false (i.e. no smell)
-                super.visit(n, arg);
+                return true;
+            }
+            return false;
+        }
 
-                boolean isSmelly = mysteryCount > thresholds.getMysteryGuest();
-                if(isSmelly){
-                    putSmellyElement(n.getName().toString());
-                    addScore(mysteryCount);
-                }
-                testMethod.setSmell(isSmelly);
-                testMethod.addDataItem("MysteryCount", String.valueOf(mysteryCount));
+        @Override
+        public void leave(MethodDeclaration n) {
+            boolean isSmelly = mysteryCount > thresholds.getMysteryGuest();
+            if(isSmelly){
+                putSmellyElement(n.getName().toString());
+                addScore(mysteryCount);
+            }
+            testMethod.setSmell(isSmelly);
+            testMethod.addDataItem("MysteryCount", String.valueOf(mysteryCount));
 
-                smellyElementsSet.add(testMethod);
+            smellyElementsSet.add(testMethod);
 
-                //reset values for next method
-                currentMethod = null;
-                mysteryCount = 0;
-            }
+            //reset values for next method
+            currentMethod = null;
+            mysteryCount = 0;
         }
 
         /*
         // examine the methods being called within the test method
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
-            super.visit(n, arg);
+        public void leave(MethodCallExpr n) {
             if (currentMethod != null){
                 for (String methodName: fileMethods) {
                     if(n.getNameAsString().equals(methodName)){
@@ -138,8 +147,7 @@ public class MysteryGuest extends AbstractSmell {
         */
 
         @Override
-        public void visit(VariableDeclarationExpr n, Void arg) {
-            super.visit(n, arg);
+        public void leave(VariableDeclarationExpr n) {
             //Note: the null check limits the identification of variable types declared within the method body.
             // Removing it will check for variables declared at the class level.
             //TODO: to null check or not to null check???
@@ -1,58 +1,57 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
-import com.github.javaparser.ast.Modifier;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.*;
 import com.github.javaparser.ast.expr.*;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
-import com.github.javaparser.resolution.declarations.ResolvedConstructorDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
 import testsmell.AbstractSmell;
+import testsmell.Assertion;
+import testsmell.SmellAnalysis;
+import testsmell.ProductionFacts;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 /**
  * Un test è Eager se le sue assert verificano gli outcome di più di UNA invocazione concreta (CallInstance) della CUT.
  */
 public class NewEagerTest extends AbstractSmell {
 
-    private static final String TEST_FILE = "Test";
-    private static final String PRODUCTION_FILE = "Production";
-
-    private String productionClassName;
-    private List<MethodDeclaration> productionMethods = new ArrayList<>();
-    private int eagerCount; 
-
     public NewEagerTest(Thresholds thresholds) { super(thresholds); }
 
     @Override public String getSmellName() { return "New Eager Test"; }
 
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit,
-                            CompilationUnit productionFileCompilationUnit,
-                            String testFileName, String productionFileName) throws FileNotFoundException {
-
-        if (productionFileCompilationUnit == null) throw new FileNotFoundException();
-
-        ClassVisitor v;
-
-        v = new ClassVisitor(PRODUCTION_FILE);
-        v.visit(productionFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new ClassVisitor();
+    }
 
-        v = new ClassVisitor(TEST_FILE);
-        v.visit(testFileCompilationUnit, null);
+    /**
+     * Only test methods are checked
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        return List.of(TEST_METHOD_MARKERS);
+    }
 
-        eagerCount = v.overallSmelly;
+    /**
+     * The called methods are matched against the ones of the production class
+     */
+    @Override
+    public ProductionFacts.Collector newProductionFactsCollector() {
+        return new ProductionFileVisitor();
     }
 
-    public int getEagerCount() { return eagerCount; }
+    /**
+     * The calls to the production class are resolved to tell the mutators from the getters by their return type
+     */
+    @Override
+    public boolean resolvesSymbols() {
+        return true;
+    }
 
 
     static final class CallInstance {
@@ -66,13 +65,81 @@ public class NewEagerTest extends AbstractSmell {
 
     }
 
+    /**
+     * A map written on top of a read-only base: what is put hides the base without copying it. Values are never null.
+     */
+    static final class Layered<K, V> {
+        private final Layered<K, V> base;
+        private final Supplier<Map<K, V>> newMap;
+        private final Map<K, V> own;
+
+        Layered(Supplier<Map<K, V>> newMap) { this(null, newMap); }
+
+        private Layered(Layered<K, V> base, Supplier<Map<K, V>> newMap) {
+            this.base = base;
+            this.newMap = newMap;
+            this.own = newMap.get();
+        }
+
+        /** Returns a map starting with the content of this one, which must not be changed anymore */
+        Layered<K, V> overlay() { return new Layered<>(this, newMap); }
+
+        V get(K key) {
+            V value = own.get(key);
+            return value != null || base == null ? value : base.get(key);
+        }
+        V getOrDefault(K key, V defaultValue) {
+            V value = get(key);
+            return value != null ? value : defaultValue;
+        }
+        boolean containsKey(K key) { return get(key) != null; }
+        void put(K key, V value) { own.put(key, value); }
+        void putIfAbsent(K key, V value) { if (!containsKey(key)) own.put(key, value); }
+    }
+
     static final class OutcomeIndex {
-        Map<String, CallInstance> valueFromCall = new HashMap<>();
-        Map<String, CallInstance> lastMutation  = new HashMap<>(); 
-        Map<String, String> aliasRoot           = new HashMap<>(); 
+        final Layered<String, CallInstance> valueFromCall;
+        final Layered<String, CallInstance> lastMutation;
+        final Layered<String, String> aliasRoot;
+
+        OutcomeIndex() {
+            valueFromCall = new Layered<>(HashMap::new);
+            lastMutation  = new Layered<>(HashMap::new);
+            aliasRoot     = new Layered<>(HashMap::new);
+        }
+
+        private OutcomeIndex(OutcomeIndex base) {
+            valueFromCall = base.valueFromCall.overlay();
+            lastMutation  = base.lastMutation.overlay();
+            aliasRoot     = base.aliasRoot.overlay();
+        }
+
+        /** Returns an index starting from this one, which must not be changed anymore */
+        OutcomeIndex overlay() { return new OutcomeIndex(this); }
+
         String rootOf(String v) { return aliasRoot.getOrDefault(v, v); }
     }
 
+    /**
+     * What the fields, the constructors and the setup methods declared so far tell before any test method runs
+     */
+    static final class Fixture {
+        final OutcomeIndex outcomes;
+        final Map<String, List<CallInstance>> producers;
+        final Layered<Node, CallInstance> nodeToCall;
+        final Layered<String, Boolean> productionVariables;
+        final int orderCounter;
+
+        Fixture(OutcomeIndex outcomes, Map<String, List<CallInstance>> producers, Layered<Node, CallInstance> nodeToCall,
+                Layered<String, Boolean> productionVariables, int orderCounter) {
+            this.outcomes = outcomes;
+            this.producers = producers;
+            this.nodeToCall = nodeToCall;
+            this.productionVariables = productionVariables;
+            this.orderCounter = orderCounter;
+        }
+    }
+
     static final class AssertInfo {
         int id;
         int order;
@@ -90,26 +157,32 @@ public class NewEagerTest extends AbstractSmell {
     }
 
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
-        private final String fileType;
+    private class ClassVisitor extends SmellAnalysis {
+        private String productionClassName;
+        private ProductionFacts productionFacts;
         private MethodDeclaration currentMethod;
         private TestMethod testMethod;
 
-        private int overallSmelly = 0;
-
         // —— Stato PER-TEST-METHOD ——
+        // O, nodeToCall and productionVariables are overlays of the fixture, fixtureProducers come before producers
         private OutcomeIndex O;
-        private List<CallInstance> calls;
-        private Map<Node, CallInstance> nodeToCall;
+        // the constructor and mutation calls on each receiver, by increasing order
+        private Map<String, List<CallInstance>> fixtureProducers;
+        private Map<String, List<CallInstance>> producers;
+        private Layered<Node, CallInstance> nodeToCall;
         private List<AssertInfo> asserts;
         private List<AssertBinding> bindings;
-        private Set<String> productionVariables;
+        private Layered<String, Boolean> productionVariables;
         private int orderCounter;
+        // the fixture of the declarations below, computed again for the next test method once they change
+        private Fixture fixture;
         private final List<VariableDeclarator> classLevelFields = new ArrayList<>();
 
         private final List<FieldAssign> ctorFieldAssigns = new ArrayList<>();
         private final List<FieldAssign> setupFieldAssigns = new ArrayList<>();
         private final Set<String> classFieldNames = new HashSet<>();
+        // whether each method call on the walk path was entered inside a test method
+        private final Deque<Boolean> callsInTest = new ArrayDeque<>();
 
         private final class FieldAssign {
             final String fieldName;
@@ -119,79 +192,55 @@ public class NewEagerTest extends AbstractSmell {
 
 
 
-        ClassVisitor(String type) { this.fileType = type; }
-
-        @Override
-        public void visit(ClassOrInterfaceDeclaration n, Void arg) {
-            super.visit(n, arg);
-            if (Objects.equals(fileType, PRODUCTION_FILE)) productionClassName = n.getNameAsString();
-        }
-
+        /**
+         * Receives the name and the public/protected methods of the production class
+         */
         @Override
-        public void visit(EnumDeclaration n, Void arg) {
-            super.visit(n, arg);
-            if (Objects.equals(fileType, PRODUCTION_FILE)) productionClassName = n.getNameAsString();
+        public void setProductionFacts(ProductionFacts facts) {
+            productionClassName = facts.getClassName();
+            productionFacts = facts;
         }
 
         @Override
-        public void visit(FieldDeclaration n, Void arg) {
-            if (Objects.equals(fileType, TEST_FILE)) {
-                classLevelFields.addAll(n.getVariables());
-            }
-            if (Objects.equals(fileType, TEST_FILE)) {
-                for (VariableDeclarator v : n.getVariables()) {
-                    classFieldNames.add(v.getNameAsString());
-                }
+        public boolean visit(FieldDeclaration n) {
+            classLevelFields.addAll(n.getVariables());
+            fixture = null;
+            for (VariableDeclarator v : n.getVariables()) {
+                classFieldNames.add(v.getNameAsString());
             }
-            super.visit(n, arg);
+            return true;
         }
 
 
 
         @Override
-        public void visit(ConstructorDeclaration n, Void arg) {
-            if (Objects.equals(fileType, TEST_FILE)) {
-                for (AssignExpr ae : n.findAll(AssignExpr.class)) {
-                    Expression target = ae.getTarget();
-                    String field = null;
-                    if (target.isFieldAccessExpr()) {
-                        FieldAccessExpr fa = target.asFieldAccessExpr();
-                        if (fa.getScope().isThisExpr() || fa.getScope().isSuperExpr()) {
-                            field = fa.getNameAsString();
-                        }
-                    } else if (target.isNameExpr()) {
-                        String name = target.asNameExpr().getNameAsString();
-                        if (classFieldNames.contains(name)) field = name;
-                    }
-                    if (field != null) {
-                        ctorFieldAssigns.add(new FieldAssign(field, ae.getValue()));
+        public boolean visit(ConstructorDeclaration n) {
+            for (AssignExpr ae : context.getAssignments(n)) {
+                Expression target = ae.getTarget();
+                String field = null;
+                if (target.isFieldAccessExpr()) {
+                    FieldAccessExpr fa = target.asFieldAccessExpr();
+                    if (fa.getScope().isThisExpr() || fa.getScope().isSuperExpr()) {
+                        field = fa.getNameAsString();
                     }
+                } else if (target.isNameExpr()) {
+                    String name = target.asNameExpr().getNameAsString();
+                    if (classFieldNames.contains(name)) field = name;
+                }
+                if (field != null) {
+                    ctorFieldAssigns.add(new FieldAssign(field, ae.getValue()));
+                    fixture = null;
                 }
             }
-            super.visit(n, arg);
+            return true;
         }
 
 
 
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-
-            if (Objects.equals(fileType, PRODUCTION_FILE)) {
-                for (Modifier modifier : n.getModifiers()) {
-                    if (n.isPublic() || n.isProtected()) {
-                        productionMethods.add(n);
-                    }
-                }
-            }
-
-            if (!Objects.equals(fileType, TEST_FILE)) {
-                if (n.isPublic() || n.isProtected()) productionMethods.add(n);
-                super.visit(n, arg);
-                return;
-            }
-
-            if(Util.isValidSetupMethod(n)){
-                for (AssignExpr ae : n.findAll(AssignExpr.class)) {
+        public boolean visit(MethodDeclaration n) {
+            if(context.isSetupMethod(n)){
+                for (AssignExpr ae : context.getAssignments(n)) {
                     Expression target = ae.getTarget();
                     String field = null;
 
@@ -209,79 +258,92 @@ public class NewEagerTest extends AbstractSmell {
 
                     if (field != null) {
                         setupFieldAssigns.add(new FieldAssign(field, ae.getValue()));
+                        fixture = null;
                     }
                 }
             }
 
-            if (Util.isValidTestMethod(n)) {
+            if (context.isTestMethod(n)) {
                 currentMethod = n;
                 testMethod = new TestMethod(currentMethod.getNameAsString());
                 testMethod.setSmell(false);
 
-                O = new OutcomeIndex();
-                calls = new ArrayList<>();
-                nodeToCall = new IdentityHashMap<>();
+                if (fixture == null) fixture = computeFixture();
+                O = fixture.outcomes.overlay();
+                fixtureProducers = fixture.producers;
+                producers = new HashMap<>();
+                nodeToCall = fixture.nodeToCall.overlay();
                 asserts = new ArrayList<>();
                 bindings = new ArrayList<>();
-                productionVariables = new HashSet<>();
-                orderCounter = 0;
-
-                for (VariableDeclarator v : classLevelFields) {
-                    if (v.getType().asString().equals(productionClassName)) {
-                        recordProductionVariable(v.getNameAsString());
-                    }
-                    v.getInitializer().ifPresent(init -> handleAssignment(v.getNameAsString(), init));
-                }
-
-                for (FieldAssign fa : ctorFieldAssigns) {
-                    recordProductionVariable(fa.fieldName);
-                    handleAssignment(fa.fieldName, fa.rhs);
-                }
+                productionVariables = fixture.productionVariables.overlay();
+                orderCounter = fixture.orderCounter;
+            }
+            return true;
+        }
 
-                for (FieldAssign fa : setupFieldAssigns) {
-                    recordProductionVariable(fa.fieldName);
-                    handleAssignment(fa.fieldName, fa.rhs);
+        /**
+         * Replays the class-level field initializers, then the field assignments of the constructors and of the
+         * setup methods, as every test method starts from them
+         */
+        private Fixture computeFixture() {
+            O = new OutcomeIndex();
+            fixtureProducers = Collections.emptyMap();
+            producers = new HashMap<>();
+            nodeToCall = new Layered<>(IdentityHashMap::new);
+            productionVariables = new Layered<>(HashMap::new);
+            orderCounter = 0;
+
+            for (VariableDeclarator v : classLevelFields) {
+                if (v.getType().asString().equals(productionClassName)) {
+                    recordProductionVariable(v.getNameAsString());
                 }
+                v.getInitializer().ifPresent(init -> handleAssignment(v.getNameAsString(), init));
+            }
 
+            for (FieldAssign fa : ctorFieldAssigns) {
+                recordProductionVariable(fa.fieldName);
+                handleAssignment(fa.fieldName, fa.rhs);
+            }
 
-                super.visit(n, arg);
-
-    
-
+            for (FieldAssign fa : setupFieldAssigns) {
+                recordProductionVariable(fa.fieldName);
+                handleAssignment(fa.fieldName, fa.rhs);
+            }
+            return new Fixture(O, producers, nodeToCall, productionVariables, orderCounter);
+        }
 
+        @Override
+        public void leave(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 int distinct = (int) bindings.stream().map(b -> b.callId).distinct().count();
-                // System.out.println(orderCounter + " distinct " + distinct);
                 boolean isSmelly = distinct > 1;
                 testMethod.setSmell(isSmelly);
                 smellyElementsSet.add(testMethod);
                 if (isSmelly){
-                    overallSmelly++;
                     putSmellyElement(n.getNameAsString());
                     addScore(1);
                 }
 
                 currentMethod = null;
-            } else {
-                super.visit(n, arg);
             }
         }
 
         @Override
-        public void visit(VariableDeclarator n, Void arg) {
-            if (currentMethod == null) {  return; }
+        public boolean visit(VariableDeclarator n) {
+            if (currentMethod == null) {  return false; }
             if (n.getType().asString().equals(productionClassName)) {
                 recordProductionVariable(n.getNameAsString());
             }
             n.getInitializer().ifPresent(init -> handleAssignment(n.getNameAsString(), init));
-            super.visit(n, arg);
+            return true;
         }
 
         @Override
-        public void visit(AssignExpr n, Void arg) {
-            if (currentMethod == null) { super.visit(n, arg); return; }
+        public boolean visit(AssignExpr n) {
+            if (currentMethod == null) { return true; }
             String lhs = n.getTarget().isNameExpr() ? n.getTarget().asNameExpr().getNameAsString() : null;
             if (lhs != null) handleAssignment(lhs, n.getValue());
-            super.visit(n, arg);
+            return true;
         }
 
 
@@ -320,10 +382,14 @@ public class NewEagerTest extends AbstractSmell {
         }
 
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
-            if (currentMethod == null) { super.visit(n, arg); return; }
+        public boolean visit(MethodCallExpr n) {
+            callsInTest.push(currentMethod != null);
+            return true;
+        }
 
-            super.visit(n, arg);
+        @Override
+        public void leave(MethodCallExpr n) {
+            if (!callsInTest.pop()) { return; }
 
             String recv = receiverIfCUT(n);
             if (recv != null) {
@@ -366,9 +432,8 @@ public class NewEagerTest extends AbstractSmell {
                 }
             }
 
-            List<MethodCallExpr> directCalls = allMethodCallsOnCUT(A.observed);
-            List<CallInstance> directCIs = directCalls.stream()
-                    .map(nodeToCall::get).filter(Objects::nonNull).collect(Collectors.toList());
+            List<CallInstance> directCIs = new ArrayList<>();
+            collectCUTCalls(A.observed, directCIs);
 
             if (!directCIs.isEmpty()) {
                 for (CallInstance C : directCIs) {
@@ -383,7 +448,7 @@ public class NewEagerTest extends AbstractSmell {
             }
 
             String recv = firstReceiverAlias(A.observed);
-            if (recv != null && productionVariables.contains(O.rootOf(recv))) {
+            if (recv != null && productionVariables.containsKey(O.rootOf(recv))) {
                 CallInstance prod = nearestProducerGlobal(O.rootOf(recv), A.order);
                 if (prod != null) {
                     bindings.add(binding(A, prod, "CUT_STATE", "NEAREST_PRODUCER", "recv=" + recv));
@@ -398,16 +463,23 @@ public class NewEagerTest extends AbstractSmell {
         }
 
         private CallInstance nearestProducerGlobal(String recv, int assertOrder) {
-            CallInstance best = null;
             String r = O.rootOf(recv);
-            for (CallInstance c : calls) {
-                if (!Objects.equals(c.receiverVar, r)) continue;
-                if (c.order >= assertOrder) continue;
-                if (c.isConstructor || looksLikeMutation(c)) {
-                    if (best == null || c.order > best.order) best = c;
-                }
-            }
-            return best;
+            CallInstance best = lastBefore(producers.get(r), assertOrder);
+            return best != null ? best : lastBefore(fixtureProducers.get(r), assertOrder);
+        }
+
+        /**
+         * Binary search of the last call before the given order, in calls sorted by order
+         */
+        private CallInstance lastBefore(List<CallInstance> sorted, int order) {
+            if (sorted == null) return null;
+            int low = 0, high = sorted.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted.get(mid).order < order) low = mid + 1;
+                else high = mid;
+            }
+            return low > 0 ? sorted.get(low - 1) : null;
         }
 
         private AssertBinding binding(AssertInfo A, CallInstance C, String kind, String rule, String detail) {
@@ -422,7 +494,7 @@ public class NewEagerTest extends AbstractSmell {
 
 
         private void recordProductionVariable(String varName) {
-            productionVariables.add(varName);
+            productionVariables.put(varName, Boolean.TRUE);
             O.aliasRoot.putIfAbsent(varName, varName);
         }
 
@@ -443,13 +515,15 @@ public class NewEagerTest extends AbstractSmell {
             C.isConstructor = isCtor;
             C.order = orderCounter;
             C.argKeys = argKeys != null ? argKeys : Collections.emptyList();
-            calls.add(C);
+            if (isCtor || looksLikeMutation(C)) {
+                producers.computeIfAbsent(recv, k -> new ArrayList<>()).add(C);
+            }
             nodeToCall.put(origin, C);
             return C;
         }
 
         private ResolvedMethodDeclaration tryResolve(MethodCallExpr m) {
-            try { return m.resolve(); } catch (Throwable t) {return null; }
+            return context.getResolutions().resolve(m);
         }
 
         private Expression unwrap(Expression e) {
@@ -487,10 +561,7 @@ public class NewEagerTest extends AbstractSmell {
         private boolean isProductionMethodByNameArity(MethodCallExpr m) {
             String name = m.getNameAsString();
             int argc = m.getArguments().size();
-            return productionMethods.stream().anyMatch(md ->
-                            md.getNameAsString().equals(name)
-                                    && md.getParameters().size() == argc
-            );
+            return productionFacts.hasMethod(name, argc);
         }
 
 
@@ -500,25 +571,23 @@ public class NewEagerTest extends AbstractSmell {
             assert sc != null;
             if (sc.isNameExpr()) {
                 String name = O.rootOf(sc.asNameExpr().getNameAsString());
-                if (productionVariables.contains(name)) return name;
+                if (productionVariables.containsKey(name)) return name;
                 if (sc.asNameExpr().getNameAsString().equals(productionClassName)) {
                     return productionClassName; 
                 }
-                if (productionMethods.stream().anyMatch(i -> i.getNameAsString().equals(m.getNameAsString()) &&
-                        i.getParameters().size() == m.getArguments().size())) {
+                if (isProductionMethodByNameArity(m)) {
                     return sc.asNameExpr().getNameAsString();
                 }
                 return null;
             }
-            if (productionMethods.stream().anyMatch(i -> i.getNameAsString().equals(m.getNameAsString()) &&
-                    i.getParameters().size() == m.getArguments().size())) {
+            if (isProductionMethodByNameArity(m)) {
                 return productionClassName;
             }
             if (scopeStartsFromCUTClass(sc)) {
                 return productionClassName;
             }
             String recv = firstReceiverAlias(sc);
-            if (recv != null && productionVariables.contains(O.rootOf(recv))) {
+            if (recv != null && productionVariables.containsKey(O.rootOf(recv))) {
                 return O.rootOf(recv);
             }
             return null;
@@ -529,7 +598,7 @@ public class NewEagerTest extends AbstractSmell {
 
         private boolean looksLikeMutation(CallInstance c) {
             if (c.decl != null) {
-                try { if (c.decl.getReturnType().isVoid()) return true; } catch (Throwable ignored) {}
+                if (Boolean.TRUE.equals(context.getResolutions().returnsVoid(c.decl))) return true;
             }
             String n = c.methodName != null ? c.methodName.toLowerCase() : "";
             return n.startsWith("set") || n.startsWith("add") || n.startsWith("remove") ||
@@ -543,7 +612,7 @@ public class NewEagerTest extends AbstractSmell {
             if (n.startsWith("get") || n.startsWith("is") || n.equals("size")) return true;
             if (n.startsWith("contains") || n.startsWith("exists") || n.startsWith("has") || n.startsWith("to") || n.equals("capacity")) return true;
             if (c.decl != null) {
-                try { if (!c.decl.getReturnType().isVoid() && !looksLikeMutation(c)) return true; } catch (Throwable ignored) {}
+                if (Boolean.FALSE.equals(context.getResolutions().returnsVoid(c.decl)) && !looksLikeMutation(c)) return true;
             }
             return false;
         }
@@ -602,19 +671,17 @@ public class NewEagerTest extends AbstractSmell {
             return null;
         }
 
-        private List<MethodCallExpr> allMethodCallsOnCUT(Expression e) {
-            Set<MethodCallExpr> set = Collections.newSetFromMap(new IdentityHashMap<>());
-            collectCUTCalls(e, set);
-            return new ArrayList<>(set);
-        }
-
-        private void collectCUTCalls(Expression e, Set<MethodCallExpr> out) {
+        /**
+         * Collects the call instances of the calls on the CUT found in the expression, that is of the calls left
+         * before it that are still on the CUT
+         */
+        private void collectCUTCalls(Expression e, List<CallInstance> out) {
             if (e == null) return;
 
             if (e.isMethodCallExpr()) {
                 MethodCallExpr m = e.asMethodCallExpr();
-                String recv = receiverIfCUT(m);
-                if (recv != null) out.add(m);
+                CallInstance C = nodeToCall.get(m);
+                if (C != null && receiverIfCUT(m) != null) out.add(C);
 
                 m.getScope().ifPresent(sc -> collectCUTCalls(sc, out));
                 for (Expression a : m.getArguments()) collectCUTCalls(a, out);
@@ -633,59 +700,36 @@ public class NewEagerTest extends AbstractSmell {
 
 
         private Optional<AssertInfo> parseJUnit4Assert(MethodCallExpr m) {
-            String name = m.getNameAsString();
-            if (!JUNIT4_NAMES.contains(name)) return Optional.empty();
-            List<Expression> args = m.getArguments();
-            Expression observed = null;
-            switch (name) {
-                case "assertEquals":
-                case "assertNotEquals":
-                case "assertSame":
-                case "assertNotSame":
-                case "assertArrayEquals":
-                    observed = pickActualForEqualsFamily(args); break;
-                case "assertNull":
-                case "assertNotNull":
-                case "assertTrue":
-                case "assertFalse":
-                    observed = pickObservedUnary(args); break;
-                case "assertThat":
-                    if (args.size() >= 2) {
-                        observed = (args.size() == 2 ? args.get(0) : args.get(1));
-                    }
-                    else if (args.size() == 1) {
-                        observed = args.get(0);
-                    }
-                    break;
-                    default: return Optional.empty();
-            }
+            Assertion assertion = context.getAssertion(m);
+            if (assertion == null || !assertion.isExact()) return Optional.empty();
+            Expression observed = assertion.getObserved();
             if (observed == null) return Optional.empty();
             AssertInfo A = new AssertInfo();
             A.observed = observed;
             return Optional.of(A);
         }
+    }
+
+    private static class ProductionFileVisitor extends ProductionFacts.Collector {
+        @Override
+        public void leave(ClassOrInterfaceDeclaration n) {
+            setClassName(n.getNameAsString());
+        }
 
-        private Expression pickObservedUnary(List<Expression> args) {
-            return args.size() == 1 ? args.get(0) : (args.size() >= 2 ? args.get(1) : null);
+        @Override
+        public void leave(EnumDeclaration n) {
+            setClassName(n.getNameAsString());
         }
-        private Expression pickActualForEqualsFamily(List<Expression> args) {
-            if (args.size() == 2) return args.get(1); 
-            if (args.size() == 3) {
-                if (args.get(0).isStringLiteralExpr()) return args.get(2);
-                try {
-                    if (args.get(0).calculateResolvedType().isReferenceType() &&
-                            "java.lang.String".equals(args.get(0).calculateResolvedType().asReferenceType().getQualifiedName()))
-                        return args.get(2);
-                } catch (Throwable ignored) {}
-                return args.get(1);
-            }
-            if (args.size() >= 4) return args.get(2);
-            return null;
+
+        @Override
+        public boolean visit(MethodDeclaration n) {
+            if (n.isPublic() || n.isProtected()) addMethod(n);
+            return true;
         }
-    }
 
-    private static final Set<String> JUNIT4_NAMES = new HashSet<>(Arrays.asList(
-            "assertEquals", "assertNotEquals", "assertArrayEquals", "assertSame", "assertNotSame",
-            "assertNull", "assertNotNull", "assertTrue", "assertFalse", "assertThat", "fail"
-    ));
+        @Override
+        public boolean visit(VariableDeclarator n) {
+            return false;
+        }
+    }
 }
@@ -1,17 +1,15 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.FieldAccessExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
+import testsmell.SmellAnalysis;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
-
-import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.Set;
 
 /*
 Test methods should not contain print statements as execution of unit tests is an automated process with little to no human intervention. Hence, print statements are redundant.
@@ -31,50 +29,61 @@ public class PrintStatement extends AbstractSmell {
         return "Print Statement";
     }
 
+    /**
+     * Calls to System.out printing methods are counted
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        if (thresholds.getPrintStatement() < 0)
+            return List.of(TEST_METHOD_MARKERS);
+        return List.of(TEST_METHOD_MARKERS, Set.of("print", "write"), Set.of("system"));
+    }
+
     /**
      * Analyze the test file for test methods that print output to the console
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        PrintStatement.ClassVisitor classVisitor;
-        classVisitor = new PrintStatement.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new PrintStatement.ClassVisitor();
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
         private MethodDeclaration currentMethod = null;
         private int printCount = 0;
         TestMethod testMethod;
 
         // examine all methods in the test class
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 currentMethod = n;
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false); //default value is false (i.e. no smell)
-                super.visit(n, arg);
+                return true;
+            }
+            return false;
+        }
 
-                boolean isSmelly = printCount > thresholds.getPrintStatement();
-                testMethod.setSmell(isSmelly);
-                if(isSmelly) {
-                    putSmellyElement(n.getName().toString());
-                    addScore(printCount);
-                }
-                testMethod.addDataItem("PrintCount", String.valueOf(printCount));
+        @Override
+        public void leave(MethodDeclaration n) {
+            boolean isSmelly = printCount > thresholds.getPrintStatement();
+            testMethod.setSmell(isSmelly);
+            if(isSmelly) {
+                putSmellyElement(n.getName().toString());
+                addScore(printCount);
+            }
+            testMethod.addDataItem("PrintCount", String.valueOf(printCount));
 
-                smellyElementsSet.add(testMethod);
+            smellyElementsSet.add(testMethod);
 
-                //reset values for next method
-                currentMethod = null;
-                printCount = 0;
-            }
+            //reset values for next method
+            currentMethod = null;
+            printCount = 0;
         }
 
         // examine the methods being called within the test method
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
-            super.visit(n, arg);
+        public void leave(MethodCallExpr n) {
             if (currentMethod != null) {
                 // if the name of a method being called is 'print' or 'println' or 'printf' or 'write'
                 if (n.getNameAsString().equals("print") || n.getNameAsString().equals("println") || n.getNameAsString().equals("printf") || n.getNameAsString().equals("write")) {
@@ -1,19 +1,17 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.BooleanLiteralExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NullLiteralExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
+import testsmell.SmellAnalysis;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /*
 If a test method contains an assert statement that explicitly returns a true or false, the method is marked as smelly
@@ -32,17 +30,25 @@ public class RedundantAssertion extends AbstractSmell {
         return "Redundant Assertion";
     }
 
+    /**
+     * Assertions are counted
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        if (thresholds.getRedundantAssertion() < 0)
+            return List.of(TEST_METHOD_MARKERS);
+        return List.of(TEST_METHOD_MARKERS, Set.of("assert"));
+    }
+
     /**
      * Analyze the test file for test methods for multiple assert statements
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        RedundantAssertion.ClassVisitor classVisitor;
-        classVisitor = new RedundantAssertion.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new RedundantAssertion.ClassVisitor();
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
         private MethodDeclaration currentMethod = null;
         private int redundantCount = 0;
         TestMethod testMethod;
@@ -50,35 +56,39 @@ public class RedundantAssertion extends AbstractSmell {
 
         // examine all methods in the test class
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 currentMethod = n;
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false); //default value is false (i.e. no smell)
-                super.visit(n, arg);
-                boolean isSmelly = redundantCount > thresholds.getRedundantAssertion();
-                testMethod.setSmell(isSmelly);
-                if(testMethod.isSmelly()){
-                    smellyMethods.add(testMethod);
-                    putSmellyElement(n.getName().toString());
-                    addScore(redundantCount);
-                }
-                testMethod.addDataItem("RedundantCount", String.valueOf(redundantCount));
-
-                smellyElementsSet.add(testMethod);
+                return true;
+            }
+            return false;
+        }
 
-                //reset values for next method
-                currentMethod = null;
-                redundantCount = 0;
+        @Override
+        public void leave(MethodDeclaration n) {
+            boolean isSmelly = redundantCount > thresholds.getRedundantAssertion();
+            testMethod.setSmell(isSmelly);
+            if(testMethod.isSmelly()){
+                smellyMethods.add(testMethod);
+                putSmellyElement(n.getName().toString());
+                addScore(redundantCount);
             }
+            testMethod.addDataItem("RedundantCount", String.valueOf(redundantCount));
+
+            smellyElementsSet.add(testMethod);
+
+            //reset values for next method
+            currentMethod = null;
+            redundantCount = 0;
         }
 
 
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
+        public void leave(MethodCallExpr n) {
             String argumentValue = null;
 
-            super.visit(n, arg);
             if (currentMethod != null) {
                 switch (n.getNameAsString()) {
                     case "assertTrue":
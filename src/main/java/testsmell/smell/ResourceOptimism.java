@@ -1,6 +1,5 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.VariableDeclarator;
@@ -8,13 +7,13 @@ import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.expr.ObjectCreationExpr;
 import com.github.javaparser.ast.expr.VariableDeclarationExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.*;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class ResourceOptimism extends AbstractSmell {
 
@@ -30,17 +29,27 @@ public class ResourceOptimism extends AbstractSmell {
         return "Resource Optimism";
     }
 
+    /**
+     * File variables of test and setup methods are counted
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        Set<String> markers = new HashSet<>(TEST_METHOD_MARKERS);
+        markers.addAll(SETUP_METHOD_MARKERS);
+        if (thresholds.getResourceOptimism() < 0)
+            return List.of(markers);
+        return List.of(markers, Set.of("file"));
+    }
+
     /**
      * Analyze the test file for the 'ResourceOptimism' smell
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        ResourceOptimism.ClassVisitor classVisitor;
-        classVisitor = new ResourceOptimism.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new ResourceOptimism.ClassVisitor();
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
         private MethodDeclaration currentMethod = null;
         private int resourceOptimismCount = 0;
         private boolean hasSmell = false;
@@ -51,32 +60,36 @@ public class ResourceOptimism extends AbstractSmell {
 
         // examine all methods in the test class
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n) || Util.isValidSetupMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n) || context.isSetupMethod(n)) {
                 currentMethod = n;
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false); //default value is false (i.e. no smell)
-                super.visit(n, arg);
+                return true;
+            }
+            return false;
+        }
 
-                testMethod.setSmell(methodVariables.size() > thresholds.getResourceOptimism() || hasSmell == true);
-                if(testMethod.isSmelly()) {
-                    putSmellyElement(n.getName().toString());
-                    addScore(methodVariables.size());
-                }
-                testMethod.addDataItem("ResourceOptimismCount", String.valueOf(resourceOptimismCount));
+        @Override
+        public void leave(MethodDeclaration n) {
+            testMethod.setSmell(methodVariables.size() > thresholds.getResourceOptimism() || hasSmell == true);
+            if(testMethod.isSmelly()) {
+                putSmellyElement(n.getName().toString());
+                addScore(methodVariables.size());
+            }
+            testMethod.addDataItem("ResourceOptimismCount", String.valueOf(resourceOptimismCount));
 
-                smellyElementsSet.add(testMethod);
+            smellyElementsSet.add(testMethod);
 
-                //reset values for next method
-                currentMethod = null;
-                resourceOptimismCount = 0;
-                hasSmell = false;
-                methodVariables = new ArrayList<>();
-            }
+            //reset values for next method
+            currentMethod = null;
+            resourceOptimismCount = 0;
+            hasSmell = false;
+            methodVariables = new ArrayList<>();
         }
 
         @Override
-        public void visit(VariableDeclarationExpr n, Void arg) {
+        public boolean visit(VariableDeclarationExpr n) {
             if (currentMethod != null) {
                 for (VariableDeclarator variableDeclarator : n.getVariables()) {
                     if (variableDeclarator.getType().equals("File")) {
@@ -84,11 +97,11 @@ public class ResourceOptimism extends AbstractSmell {
                     }
                 }
             }
-            super.visit(n, arg);
+            return true;
         }
 
         @Override
-        public void visit(ObjectCreationExpr n, Void arg) {
+        public boolean visit(ObjectCreationExpr n) {
             if (currentMethod != null) {
                 if (n.getParentNode().isPresent()) {
                     if (!(n.getParentNode().get() instanceof VariableDeclarator)) { // VariableDeclarator is handled in the override method
@@ -100,11 +113,11 @@ public class ResourceOptimism extends AbstractSmell {
             } else {
                 System.out.println(n.getType());
             }
-            super.visit(n, arg);
+            return true;
         }
 
         @Override
-        public void visit(VariableDeclarator n, Void arg) {
+        public boolean visit(VariableDeclarator n) {
             if (currentMethod != null) {
                 if (n.getType().asString().equals("File")) {
                     methodVariables.add(n.getNameAsString());
@@ -114,23 +127,22 @@ public class ResourceOptimism extends AbstractSmell {
                     classVariables.add(n.getNameAsString());
                 }
             }
-            super.visit(n, arg);
+            return true;
         }
 
         @Override
-        public void visit(FieldDeclaration n, Void arg) {
+        public boolean visit(FieldDeclaration n) {
             for (VariableDeclarator variableDeclarator : n.getVariables()) {
                 if (variableDeclarator.getType().equals("File")) {
                     classVariables.add(variableDeclarator.getNameAsString());
                 }
             }
-            super.visit(n, arg);
+            return true;
         }
 
 
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
-            super.visit(n, arg);
+        public void leave(MethodCallExpr n) {
             if (currentMethod != null) {
                 if (n.getNameAsString().equals("exists") ||
                         n.getNameAsString().equals("isFile") ||
@@ -1,18 +1,17 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.*;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
+import testsmell.Assertion;
+import testsmell.SmellAnalysis;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.List;
 
 public class SensitiveEquality extends AbstractSmell {
 
@@ -25,16 +24,22 @@ public class SensitiveEquality extends AbstractSmell {
         return "Sensitive Equality";
     }
 
+    /**
+     * Assertions involving toString are counted
+     */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit,
-                            CompilationUnit productionFileCompilationUnit,
-                            String testFileName,
-                            String productionFileName) throws FileNotFoundException {
-        ClassVisitor classVisitor = new ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public List<Set<String>> getTriggers() {
+        if (thresholds.getSensitiveEquality() < 0)
+            return List.of(TEST_METHOD_MARKERS);
+        return List.of(TEST_METHOD_MARKERS, Set.of("tostring"), Set.of("assert", "fail"));
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    @Override
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new ClassVisitor();
+    }
+
+    private class ClassVisitor extends SmellAnalysis {
         private MethodDeclaration currentMethod = null;
         private int sensitiveCount = 0;
         private TestMethod testMethod;
@@ -42,33 +47,35 @@ public class SensitiveEquality extends AbstractSmell {
         private final Set<String> methodTargets = Set.of("toString");
 
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 currentMethod = n;
                 sensitiveVars.clear();
                 sensitiveCount = 0;
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false);
+                return true;
+            }
+            return false;
+        }
 
-                super.visit(n, arg);
-
-                boolean isSmelly = sensitiveCount > thresholds.getSensitiveEquality();
-
-                testMethod.setSmell(isSmelly);
-                if(isSmelly){
-                    putSmellyElement(n.getName().toString());
-                    addScore(sensitiveCount);
-                }
-                testMethod.addDataItem("SensitiveCount", String.valueOf(sensitiveCount));
-                smellyElementsSet.add(testMethod);
+        @Override
+        public void leave(MethodDeclaration n) {
+            boolean isSmelly = sensitiveCount > thresholds.getSensitiveEquality();
 
-                currentMethod = null;
+            testMethod.setSmell(isSmelly);
+            if(isSmelly){
+                putSmellyElement(n.getName().toString());
+                addScore(sensitiveCount);
             }
+            testMethod.addDataItem("SensitiveCount", String.valueOf(sensitiveCount));
+            smellyElementsSet.add(testMethod);
+
+            currentMethod = null;
         }
 
         @Override
-        public void visit(VariableDeclarator n, Void arg) {
-            super.visit(n, arg);
+        public void leave(VariableDeclarator n) {
             n.getInitializer().ifPresent(value -> {
                 boolean isSensitive = value.findAll(MethodCallExpr.class).stream()
                         .map(MethodCallExpr::getNameAsString)
@@ -81,8 +88,7 @@ public class SensitiveEquality extends AbstractSmell {
 
 
         @Override
-        public void visit(AssignExpr n, Void arg) {
-            super.visit(n, arg);
+        public void leave(AssignExpr n) {
             if (currentMethod == null) return;
             Expression target = n.getTarget();
             Expression value = n.getValue();
@@ -102,16 +108,9 @@ public class SensitiveEquality extends AbstractSmell {
             }
         }
 
-        private boolean isEqualityAssert(String name) {
-            return name.equals("assertEquals")
-                    || name.equals("assertNotEquals")
-                    || name.equals("assertArrayEquals")
-                    || name.equals("assertSame")
-                    || name.equals("assertNotSame")
-                    || name.equals("assertTrue")
-                    || name.equals("assertFalse")
-                    || name.equals("assertThat")
-                    || name.equals("fail");
+        private boolean isEqualityAssert(Assertion assertion) {
+            Assertion.Family family = assertion.getFamily();
+            return assertion.isExact() && family != Assertion.Family.NULL && family != Assertion.Family.THROWS;
         }
 
 
@@ -135,11 +134,10 @@ public class SensitiveEquality extends AbstractSmell {
 
 
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
-            super.visit(n, arg);
+        public void leave(MethodCallExpr n) {
             if (currentMethod != null) {
-                String name = n.getNameAsString();
-                if (isEqualityAssert(name)) {
+                Assertion assertion = context.getAssertion(n);
+                if (assertion != null && isEqualityAssert(assertion)) {
                     for (Expression argument : n.getArguments()) {
                         if (isSensitiveExpr(argument)) {
                             sensitiveCount++;
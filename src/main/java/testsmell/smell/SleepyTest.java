@@ -1,18 +1,15 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
-import testsmell.SmellyElement;
+import testsmell.SmellAnalysis;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
 import java.util.List;
+import java.util.Set;
 
 /*
 Use of Thread.sleep() in test methods can possibly lead to unexpected results as the processing time of tasks on different devices/machines can be different. Use mock objects instead
@@ -32,50 +29,61 @@ public class SleepyTest extends AbstractSmell {
         return "Sleepy Test";
     }
 
+    /**
+     * Calls to Thread.sleep are counted
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        if (thresholds.getSleepyTest() < 0)
+            return List.of(TEST_METHOD_MARKERS);
+        return List.of(TEST_METHOD_MARKERS, Set.of("sleep"), Set.of("thread"));
+    }
+
     /**
      * Analyze the test file for test methods that use Thread.sleep()
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        SleepyTest.ClassVisitor classVisitor;
-        classVisitor = new SleepyTest.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new SleepyTest.ClassVisitor();
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
         private MethodDeclaration currentMethod = null;
         private int sleepCount = 0;
         TestMethod testMethod;
 
         // examine all methods in the test class
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 currentMethod = n;
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false); //default value is false (i.e. no smell)
-                super.visit(n, arg);
+                return true;
+            }
+            return false;
+        }
 
-                boolean isSmelly = sleepCount > thresholds.getSleepyTest();
-                testMethod.setSmell(isSmelly);
-                if(isSmelly){
-                    putSmellyElement(n.getName().toString());
-                    addScore(sleepCount);
-                }
-                testMethod.addDataItem("ThreadSleepCount", String.valueOf(sleepCount));
+        @Override
+        public void leave(MethodDeclaration n) {
+            boolean isSmelly = sleepCount > thresholds.getSleepyTest();
+            testMethod.setSmell(isSmelly);
+            if(isSmelly){
+                putSmellyElement(n.getName().toString());
+                addScore(sleepCount);
+            }
+            testMethod.addDataItem("ThreadSleepCount", String.valueOf(sleepCount));
 
-                smellyElementsSet.add(testMethod);
+            smellyElementsSet.add(testMethod);
 
-                //reset values for next method
-                currentMethod = null;
-                sleepCount = 0;
-            }
+            //reset values for next method
+            currentMethod = null;
+            sleepCount = 0;
         }
 
         // examine the methods being called within the test method
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
-            super.visit(n, arg);
+        public void leave(MethodCallExpr n) {
             if (currentMethod != null) {
                 // if the name of a method being called is 'sleep'
                 if (n.getNameAsString().equals("sleep")) {
@@ -1,19 +1,17 @@
 package testsmell.smell;
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.expr.MemberValuePair;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NormalAnnotationExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
+import testsmell.SmellAnalysis;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public class UnknownTest extends AbstractSmell {
 
@@ -29,17 +27,23 @@ public class UnknownTest extends AbstractSmell {
         return "Unknown Test";
     }
 
+    /**
+     * Only test methods are checked
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        return List.of(TEST_METHOD_MARKERS);
+    }
+
     /**
      * Analyze the test file for test methods that do not have assert statement or exceptions
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        UnknownTest.ClassVisitor classVisitor;
-        classVisitor = new UnknownTest.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new UnknownTest.ClassVisitor();
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
         private MethodDeclaration currentMethod = null;
         TestMethod testMethod;
         List<String> assertMessage = new ArrayList<>();
@@ -48,8 +52,8 @@ public class UnknownTest extends AbstractSmell {
 
         // examine all methods in the test class
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 Optional<AnnotationExpr> assertAnnotation = n.getAnnotationByName("Test");
                 if (assertAnnotation.isPresent()) {
                     AnnotationExpr annotation = assertAnnotation.get();
@@ -67,29 +71,32 @@ public class UnknownTest extends AbstractSmell {
                 currentMethod = n;
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false); //default value is false (i.e. no smell)
-                super.visit(n, arg);
+                return true;
+            }
+            return false;
+        }
 
-                // no assertions and no annotation
-                if (!hasAssert && !hasExceptionAnnotation) {
-                    testMethod.setSmell(true);
-                    putSmellyElement(n.getName().toString());
-                    addScore(1);
-                }
+        @Override
+        public void leave(MethodDeclaration n) {
+            // no assertions and no annotation
+            if (!hasAssert && !hasExceptionAnnotation) {
+                testMethod.setSmell(true);
+                putSmellyElement(n.getName().toString());
+                addScore(1);
+            }
 
-                smellyElementsSet.add(testMethod);
+            smellyElementsSet.add(testMethod);
 
-                //reset values for next method
-                currentMethod = null;
-                assertMessage = new ArrayList<>();
-                hasAssert = false;
-            }
+            //reset values for next method
+            currentMethod = null;
+            assertMessage = new ArrayList<>();
+            hasAssert = false;
         }
 
 
         // examine the methods being called within the test method
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
-            super.visit(n, arg);
+        public void leave(MethodCallExpr n) {
             if (currentMethod != null) {
                 // if the name of a method being called start with 'assert'
                 if (n.getNameAsString().startsWith(("assert"))) {
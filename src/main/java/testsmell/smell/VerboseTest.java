@@ -1,16 +1,13 @@
 package testsmell.smell;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import testsmell.AbstractSmell;
-import testsmell.SmellyElement;
+import testsmell.SmellAnalysis;
 import testsmell.TestMethod;
-import testsmell.Util;
 import thresholds.Thresholds;
 
-import java.io.FileNotFoundException;
 import java.util.List;
+import java.util.Set;
 
 /*
 If a test methods contains a statements that exceeds a certain threshold, the method is marked as smelly
@@ -29,17 +26,23 @@ public class VerboseTest extends AbstractSmell {
         return "Verbose Test";
     }
 
+    /**
+     * Only test methods are checked
+     */
+    @Override
+    public List<Set<String>> getTriggers() {
+        return List.of(TEST_METHOD_MARKERS);
+    }
+
     /**
      * Analyze the test file for test methods for the 'Verbose Test' smell
      */
     @Override
-    public void runAnalysis(CompilationUnit testFileCompilationUnit, CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName) throws FileNotFoundException {
-        VerboseTest.ClassVisitor classVisitor;
-        classVisitor = new VerboseTest.ClassVisitor();
-        classVisitor.visit(testFileCompilationUnit, null);
+    public SmellAnalysis newAnalysis(String testFileName, String productionFileName) {
+        return new VerboseTest.ClassVisitor();
     }
 
-    private class ClassVisitor extends VoidVisitorAdapter<Void> {
+    private class ClassVisitor extends SmellAnalysis {
         final int MAX_STATEMENTS = 123;
         private MethodDeclaration currentMethod = null;
         private int verboseCount = 0;
@@ -47,8 +50,8 @@ public class VerboseTest extends AbstractSmell {
 
         // examine all methods in the test class
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            if (Util.isValidTestMethod(n)) {
+        public boolean visit(MethodDeclaration n) {
+            if (context.isTestMethod(n)) {
                 currentMethod = n;
                 testMethod = new TestMethod(n.getNameAsString());
                 testMethod.setSmell(false); //default value is false (i.e. no smell)
@@ -76,6 +79,7 @@ public class VerboseTest extends AbstractSmell {
                 currentMethod = null;
                 verboseCount = 0;
             }
+            return false;
         }
     }
 }
\ No newline at end of file
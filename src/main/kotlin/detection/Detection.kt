@@ -1,39 +1,96 @@
-
 package detection
 
-import testsmell.AbstractSmell
+import testsmell.ParsedTestFile
+import testsmell.SmellResult
 import testsmell.TestFile
 import testsmell.TestSmellDetector
+import java.nio.ByteBuffer
 
 /**
- * Runs the detection by exploiting the TestSmellDetector class
+ * Runs the detection by exploiting the TestSmellDetector class.
+ *
+ * Besides [detectSmells], the detection can be run one step at a time, [read] then [parse] then [detect], so that
+ * each step can be done by a different thread of a [DetectionPipeline].
  */
 class Detection(private val project: String,
                 private val testClassPath: String,
                 private val productionClassPath: String,
                 private val testSmellDetector: TestSmellDetector) {
 
+    private val testFile = TestFile(project, testClassPath, productionClassPath)
+    private var testSource: ByteBuffer? = null
+    private var productionSource: ByteBuffer? = null
+    private var cacheKey: String? = null
+    private var parsedTestFile: ParsedTestFile? = null
+
+    /**
+     * Analyze a given pair and return a DetectionResult.
+     * When a cache is given, a pair whose result is already stored there is not parsed at all
+     */
+    fun detectSmells(getSmellValue: (SmellResult) -> Any, cache: ResultCache? = null): DetectionResult {
+        return read(cache) ?: run {
+            parse()
+            detect(getSmellValue, cache)
+        }
+    }
+
+    /**
+     * Reads the sources of the pair, the production one only if the analysis mode looks at it. Returns the result
+     * stored in the cache for them, if any
+     */
+    fun read(cache: ResultCache? = null): DetectionResult? {
+        testSource = TestSmellDetector.readSource(testFile.testFilePath)
+        if (testSmellDetector.analysisMode.readsProductionFile())
+            productionSource = TestSmellDetector.readSource(testFile.productionFilePath)
+        if (cache == null)
+            return null
+        val key = cache.keyOf(testFile, testSource, productionSource)
+        cacheKey = key
+        return cache.get(key)?.let { cached ->
+            toDetectionResult(testFile, cached.numberOfTestMethods, cached.smellResult(), cached.resolutionBudgetExceeded)
+        }
+    }
+
+    /**
+     * Parses the sources, once they have been read
+     */
+    fun parse() {
+        parsedTestFile = testSmellDetector.parse(testFile, testSource, productionSource)
+        testSource = null
+        productionSource = null
+    }
+
     /**
-     * Analyze a given pair and return a DetectionResult
+     * Detects the smells in the parsed sources and stores the result in the cache, if one is given
      */
-    fun detectSmells(getSmellValue: (AbstractSmell) -> Any): DetectionResult {
-        val testFile = TestFile(project, testClassPath, productionClassPath)
-        val tempFile: TestFile = testSmellDetector.detectSmells(testFile)
+    fun detect(getSmellValue: (SmellResult) -> Any, cache: ResultCache? = null): DetectionResult {
+        val tempFile: TestFile = testSmellDetector.detectSmells(parsedTestFile!!)
+        parsedTestFile = null
 
         val smellLists: List<String> = testSmellDetector.testSmellNames
-        val smellValues: List<Any> = tempFile.testSmells.map { getSmellValue.invoke(it) }
+        // the smells left out, as those needing a production file that is missing or not read, have no value
+        val smellValues: List<Any> = tempFile.testSmells.map { it?.let(getSmellValue) ?: "" }
 
         val outputs: List<Pair<String, String>> = smellLists.zip(smellValues.map { e -> e.toString() })
 
+        val result = toDetectionResult(tempFile, testFile.numberOfTestMethods, outputs, tempFile.isResolutionBudgetExceeded)
+        cacheKey?.let { cache?.put(it, result) }
+        return result
+    }
+
+    private fun toDetectionResult(testFile: TestFile, numberOfTestMethods: Int,
+                                  outputs: List<Pair<String, String>>,
+                                  resolutionBudgetExceeded: Boolean): DetectionResult {
         return DetectionResult(
             application = project,
-            testFileName = tempFile.testFileName,
-            testFilePath = tempFile.testFilePath,
-            productionFilePath = tempFile.productionFilePath,
-            relativeTestFilePath = tempFile.relativeTestFilePath,
-            relativeProductionFilePath = tempFile.relativeProductionFilePath,
-            numberOfTestMethods = testFile.numberOfTestMethods,
-            smellResult = outputs
+            testFileName = testFile.testFileName,
+            testFilePath = testFile.testFilePath,
+            productionFilePath = testFile.productionFilePath,
+            relativeTestFilePath = testFile.relativeTestFilePath,
+            relativeProductionFilePath = testFile.relativeProductionFilePath,
+            numberOfTestMethods = numberOfTestMethods,
+            smellResult = outputs,
+            resolutionBudgetExceeded = resolutionBudgetExceeded
         )
     }
 }
@@ -0,0 +1,127 @@
+package detection
+
+import testsmell.SmellResult
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Runs the detection of many pairs as a chain of stages: reading the sources, parsing them, detecting the smells
+ * and writing the results. Each stage has its own threads and hands the pairs to the next one through a bounded
+ * queue, so a stage waits when the following one falls behind and the pairs in flight stay bounded whatever the
+ * speed of each stage.
+ *
+ * The results are written by the calling thread in the order of the input, through a [ReorderBuffer]: a pair enters
+ * the pipeline only once it is less than [reorderWindow] pairs ahead of the next one to write, so a slow pair holds
+ * back a bounded number of finished ones and the output is the same whatever the number of threads. A pair whose
+ * detection fails stops the run once the results coming before it have been written, as if the pairs were analyzed
+ * one after another.
+ */
+class DetectionPipeline(private val readThreads: Int,
+                        private val parseThreads: Int,
+                        private val detectThreads: Int,
+                        private val queueCapacity: Int = 4 * maxOf(readThreads, parseThreads, detectThreads),
+                        private val reorderWindow: Int = 4 * queueCapacity) {
+
+    /**
+     * A pair moving through the stages. It carries either its result, once known, or the failure that stopped it
+     */
+    private class Job(val sequence: Long, val detection: Detection?) {
+        var result: DetectionResult? = null
+        var failure: Throwable? = null
+    }
+
+    fun run(pairs: Sequence<Detection>, getSmellValue: (SmellResult) -> Any, cache: ResultCache?,
+            write: (DetectionResult) -> Unit) {
+        val toRead = ArrayBlockingQueue<Job>(queueCapacity)
+        val toParse = ArrayBlockingQueue<Job>(queueCapacity)
+        val toDetect = ArrayBlockingQueue<Job>(queueCapacity)
+        val toWrite = ReorderBuffer<Job>(reorderWindow)
+        val executors = listOf(
+            Executors.newSingleThreadExecutor(),
+            stage(readThreads, toRead, toParse::put) { job -> job.result = job.detection!!.read(cache) },
+            stage(parseThreads, toParse, toDetect::put) { job -> job.detection!!.parse() },
+            stage(detectThreads, toDetect, { job -> if (job !== END) toWrite.complete(job.sequence, job) }) { job ->
+                job.result = job.detection!!.detect(getSmellValue, cache)
+            }
+        )
+        try {
+            executors[0].execute {
+                var sequence = 0L
+                try {
+                    try {
+                        for (pair in pairs) {
+                            toWrite.admit(sequence)
+                            toRead.put(Job(sequence++, pair))
+                        }
+                    } catch (e: InterruptedException) {
+                        throw e
+                    } catch (e: Throwable) {
+                        toWrite.admit(sequence)
+                        toRead.put(Job(sequence++, null).also { it.failure = e })
+                    }
+                    toRead.put(END)
+                    toWrite.close(sequence)
+                } catch (e: InterruptedException) {
+                    // the run is over
+                }
+            }
+            writeInOrder(toWrite, write)
+        } finally {
+            executors.forEach { it.shutdownNow() }
+        }
+    }
+
+    /**
+     * Writes the results in the order of the input, as the reorder buffer hands them out
+     */
+    private fun writeInOrder(toWrite: ReorderBuffer<Job>, write: (DetectionResult) -> Unit) {
+        while (true) {
+            val job = toWrite.take() ?: break
+            job.failure?.let { throw it }
+            write(job.result!!)
+        }
+    }
+
+    /**
+     * Starts the threads of a stage. They apply [work] to the pairs still to be processed and pass every pair on to
+     * [output]; the last one to see the end of the input passes it on as well
+     */
+    private fun stage(threads: Int, input: BlockingQueue<Job>, output: (Job) -> Unit,
+                      work: (Job) -> Unit): ExecutorService {
+        val executor = Executors.newFixedThreadPool(threads)
+        val running = AtomicInteger(threads)
+        repeat(threads) {
+            executor.execute {
+                try {
+                    while (true) {
+                        val job = input.take()
+                        if (job === END) {
+                            input.put(END)
+                            if (running.decrementAndGet() == 0)
+                                output(END)
+                            break
+                        }
+                        if (job.failure == null && job.result == null) {
+                            try {
+                                work(job)
+                            } catch (e: Throwable) {
+                                job.failure = e
+                            }
+                        }
+                        output(job)
+                    }
+                } catch (e: InterruptedException) {
+                    // the run is over
+                }
+            }
+        }
+        return executor
+    }
+
+    private companion object {
+        val END = Job(-1, null)
+    }
+}
@@ -11,5 +11,7 @@ data class DetectionResult(
         val relativeTestFilePath: String,
         val relativeProductionFilePath: String,
         val numberOfTestMethods: Int,
-        val smellResult: List<Pair<String, String>>
+        val smellResult: List<Pair<String, String>>,
+        /** Whether the symbol resolution budget of the test file was used up, leaving some smells to the syntax */
+        val resolutionBudgetExceeded: Boolean
 )
\ No newline at end of file
@@ -0,0 +1,69 @@
+package detection
+
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * Hands out values in the order of their sequence numbers, starting from 0, while they may be completed in any
+ * order by other threads.
+ *
+ * A sequence number must be admitted before its value is completed, and [admit] waits while it is [window] or more
+ * ahead of the next value to hand out. At most [window] values are therefore held back, however late the next one
+ * is.
+ */
+class ReorderBuffer<T : Any>(private val window: Int) {
+
+    private val lock = ReentrantLock()
+    private val admittable = lock.newCondition()
+    private val completed = lock.newCondition()
+    private val slots = arrayOfNulls<Any>(window)
+    private var next = 0L
+    private var total = -1L
+
+    init {
+        require(window > 0) { "The window must hold at least one value" }
+    }
+
+    /**
+     * Waits until the value with the given sequence number fits in the window
+     */
+    fun admit(sequence: Long) = lock.withLock {
+        while (sequence >= next + window)
+            admittable.await()
+    }
+
+    /**
+     * Stores the value of an admitted sequence number
+     */
+    fun complete(sequence: Long, value: T) = lock.withLock {
+        check(sequence >= next && sequence < next + window) { "Sequence number $sequence has not been admitted" }
+        slots[(sequence % window).toInt()] = value
+        completed.signalAll()
+    }
+
+    /**
+     * Tells that no sequence number from [total] on will be admitted
+     */
+    fun close(total: Long) = lock.withLock {
+        this.total = total
+        completed.signalAll()
+    }
+
+    /**
+     * Waits for the next value in sequence and returns it, or returns null once all the values have been handed out
+     */
+    fun take(): T? = lock.withLock {
+        val slot = (next % window).toInt()
+        while (slots[slot] == null) {
+            if (next == total)
+                return null
+            completed.await()
+        }
+        @Suppress("UNCHECKED_CAST")
+        val value = slots[slot] as T
+        slots[slot] = null
+        next++
+        admittable.signalAll()
+        value
+    }
+}
@@ -0,0 +1,156 @@
+package detection
+
+import com.google.gson.Gson
+import testsmell.AnalysisMode
+import testsmell.ResolutionBudget
+import testsmell.TestFile
+import thresholds.Thresholds
+import java.io.File
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.security.MessageDigest
+
+/**
+ * Keeps the detection results on disk, so that a run only analyzes the pairs that changed since the previous one.
+ *
+ * A result is found by hashing the content and the name of the test and production files together with the build of
+ * the tool, the thresholds, the granularity, the resolution budget and the analysis mode, with its classpath. The other
+ * files of the source roots, used to resolve the symbols, and the content of the jars are not part of the key.
+ *
+ * The build is told apart by the content of the jar or of the class directory the tool runs from, so that the results
+ * of a detector whose logic changed are never served, even when its version number stays the same.
+ */
+class ResultCache(private val directory: File, thresholds: Thresholds, granularity: String,
+                  resolutionBudget: ResolutionBudget, mode: AnalysisMode, classpath: List<File>) {
+
+    private val configuration: String = listOf(
+        "build=$BUILD_FINGERPRINT",
+        "thresholds=${thresholds.javaClass.name}${thresholdValues(thresholds)}",
+        "granularity=$granularity",
+        "resolutionBudget=$resolutionBudget",
+        "mode=$mode",
+        "classpath=${classpath.joinToString(File.pathSeparator) { it.absolutePath }}"
+    ).joinToString("\n")
+
+    private val gson = Gson()
+
+    /**
+     * Returns the key of the given pair, whose sources have already been read
+     */
+    fun keyOf(testFile: TestFile, testSource: ByteBuffer?, productionSource: ByteBuffer?): String {
+        val digest = MessageDigest.getInstance("SHA-256")
+        digest.updateField(configuration)
+        digest.updateField(testFile.testFileName)
+        digest.updateField(testSource ?: ByteBuffer.allocate(0))
+        if (productionSource != null) {
+            digest.updateField(testFile.productionFileName)
+            digest.updateField(productionSource)
+        } else {
+            digest.updateField("")
+        }
+        return digest.digest().joinToString("") { "%02x".format(it) }
+    }
+
+    /**
+     * Returns the result stored for the key, or null if there is none or it cannot be read, as an entry missing
+     * some of its fields
+     */
+    fun get(key: String): Entry? {
+        val file = fileOf(key)
+        if (!file.isFile)
+            return null
+        val entry = try {
+            gson.fromJson(file.readText(StandardCharsets.UTF_8), Entry::class.java)
+        } catch (e: Exception) {
+            null
+        }
+        return entry?.takeIf { it.isComplete() }
+    }
+
+    /**
+     * Stores the result of a pair. The file is written aside and then moved, so that concurrent runs never read a
+     * partial result
+     */
+    fun put(key: String, result: DetectionResult) {
+        val file = fileOf(key)
+        val entry = Entry(result.numberOfTestMethods, result.smellResult.map { it.first }, result.smellResult.map { it.second },
+            result.resolutionBudgetExceeded)
+        try {
+            Files.createDirectories(file.parentFile.toPath())
+            val temporary = Files.createTempFile(file.parentFile.toPath(), key, ".tmp")
+            Files.write(temporary, gson.toJson(entry).toByteArray(StandardCharsets.UTF_8))
+            Files.move(temporary, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        } catch (e: IOException) {
+            System.err.println("Could not cache the result of ${result.testFilePath}: ${e.message}")
+        }
+    }
+
+    private fun fileOf(key: String) = File(File(directory, key.substring(0, 2)), "$key.json")
+
+    /**
+     * What is stored for a pair: the rest of its DetectionResult only depends on the input row
+     */
+    class Entry(val numberOfTestMethods: Int, val smells: List<String>, val values: List<String>,
+                val resolutionBudgetExceeded: Boolean) {
+        fun smellResult(): List<Pair<String, String>> = smells.zip(values)
+
+        /**
+         * Tells whether every field has been read, with a value for each smell. Gson leaves the missing fields null,
+         * whatever their declared type
+         */
+        @Suppress("SENSELESS_COMPARISON")
+        fun isComplete(): Boolean = smells != null && values != null && smells.size == values.size
+                && smells.none { it == null } && values.none { it == null }
+    }
+
+    companion object {
+        private val BUILD_FINGERPRINT: String by lazy { buildFingerprint() }
+
+        /**
+         * Hashes the jar the tool runs from, or the files of its class directory. When neither can be read, every run
+         * gets a fingerprint of its own, so that nothing stale is ever served
+         */
+        private fun buildFingerprint(): String {
+            val location = try {
+                File(ResultCache::class.java.protectionDomain.codeSource.location.toURI())
+            } catch (e: Exception) {
+                null
+            }
+            val digest = MessageDigest.getInstance("SHA-256")
+            try {
+                when {
+                    location == null -> return "unknown-${System.nanoTime()}"
+                    location.isFile -> digest.updateField(ByteBuffer.wrap(Files.readAllBytes(location.toPath())))
+                    else -> location.walk().filter { it.isFile }.sortedBy { it.path }.forEach { file ->
+                        digest.updateField(file.relativeTo(location).path)
+                        digest.updateField(ByteBuffer.wrap(Files.readAllBytes(file.toPath())))
+                    }
+                }
+            } catch (e: IOException) {
+                return "unknown-${System.nanoTime()}"
+            }
+            return digest.digest().joinToString("") { "%02x".format(it) }
+        }
+
+        private fun thresholdValues(thresholds: Thresholds): String =
+            thresholds.javaClass.methods
+                .filter { it.name.startsWith("get") && it.parameterCount == 0 && it.returnType == Int::class.javaPrimitiveType }
+                .sortedBy { it.name }
+                .joinToString(",", "[", "]") { "${it.name}=${it.invoke(thresholds)}" }
+
+        private fun MessageDigest.updateField(value: String) =
+            updateField(ByteBuffer.wrap(value.toByteArray(StandardCharsets.UTF_8)))
+
+        /**
+         * Hashes the length of the value as well, so that two consecutive values cannot be read as different ones
+         */
+        private fun MessageDigest.updateField(value: ByteBuffer) {
+            update(value.remaining().toString().toByteArray(StandardCharsets.UTF_8))
+            update(':'.code.toByte())
+            update(value.duplicate())
+        }
+    }
+}
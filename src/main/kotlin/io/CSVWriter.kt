@@ -1,32 +1,55 @@
 package io
 
+import com.github.doyaaaaaken.kotlincsv.client.CsvFileWriter
+import com.github.doyaaaaaken.kotlincsv.client.KotlinCsvExperimental
 import com.github.doyaaaaaken.kotlincsv.dsl.csvWriter
 import detection.DetectionResult
+import testsmell.PeriodicFlushOutputStream
+import java.io.Closeable
+import java.io.FileOutputStream
 
-class CSVWriter(private val destinationPath: String = "test-smells.csv") {
+/**
+ * Writes the results to a csv file kept open until the writer is closed. The rows are buffered and reach the
+ * file when the buffer is full or once per flush interval; closing the writer writes the remaining ones.
+ *
+ * The header lists the given smell names, in the order of the values of each result, followed by whether the
+ * resolution budget of the file was exceeded
+ */
+class CSVWriter(private val smellNames: List<String>,
+                private val destinationPath: String = "test-smells.csv",
+                private val bufferSize: Int = PeriodicFlushOutputStream.DEFAULT_BUFFER_SIZE,
+                private val flushIntervalMillis: Long = PeriodicFlushOutputStream.DEFAULT_FLUSH_INTERVAL_MILLIS) : Closeable {
 
-    private var flag: Boolean = false
+    private var writer: CsvFileWriter? = null
 
     /**
      * Write the results of a detection to the csv file
      */
     fun writeResult(result: DetectionResult) {
-        if (!flag) {
-            csvWriter().open(destinationPath) {
-                val header = listOf("App", "TestClass", "TestFilePath", "ProductionFilePath",
-                    "RelativeTestFilePath", "RelativeProductionFilePath", "NumberOfMethods")
-                val smells = result.smellResult.map { it.first }
-                writeRow(header.plus(smells))
-                flag = true
-            }
-        }
+        val writer = this.writer ?: open()
         val toSave = listOf(result.application,
             result.testFileName, result.testFilePath, result.productionFilePath,
             result.relativeTestFilePath, result.relativeProductionFilePath, result.numberOfTestMethods)
-        csvWriter().open(destinationPath, append = true) {
-            writeRow(toSave.plus(result.smellResult.map { it.second.toString() }))
-        }
+        writer.writeRow(toSave.plus(result.smellResult.map { it.second.toString() })
+            .plus(result.resolutionBudgetExceeded.toString()))
     }
 
+    /**
+     * Creates the file with the header. The raw writer is the only one of kotlin-csv staying open between calls.
+     */
+    @OptIn(KotlinCsvExperimental::class)
+    private fun open(): CsvFileWriter {
+        val output = PeriodicFlushOutputStream(FileOutputStream(destinationPath), bufferSize, flushIntervalMillis)
+        val writer = csvWriter().openAndGetRawWriter(output)
+        val header = listOf("App", "TestClass", "TestFilePath", "ProductionFilePath",
+            "RelativeTestFilePath", "RelativeProductionFilePath", "NumberOfMethods")
+        writer.writeRow(header.plus(smellNames).plus("ResolutionBudgetExceeded"))
+        this.writer = writer
+        return writer
+    }
 
-}
\ No newline at end of file
+    override fun close() {
+        writer?.close()
+        writer = null
+    }
+}
@@ -0,0 +1,221 @@
+package io
+
+import java.io.File
+import java.io.IOException
+import java.io.InputStreamReader
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.LinkOption
+import java.nio.file.Path
+import java.nio.file.attribute.BasicFileAttributes
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.RecursiveAction
+import java.util.stream.Collectors
+
+/**
+ * Finds the pairs to analyze in a repository, in place of an input file.
+ *
+ * The source tree is walked in parallel, one task per directory, and the java files are indexed by their simple
+ * class name. A test class is recognized by its name (FooTest, FooTests, FooTestCase, FooIT or TestFoo) and paired
+ * with the production class named after it; Maven-like main and test directories, when present, tell the two kinds
+ * of classes apart. When several files carry that name, the one imported by the test wins,
+ * then the one in the package of the test, then the one sharing the longest path with it. The tests with no
+ * production class are left out, as their pair could not be analyzed.
+ */
+class RepositoryScanner(private val repository: File, private val threads: Int) {
+
+    private class SourceFile(val path: Path, val className: String) {
+        private fun inDirectory(name: String) = (0 until path.nameCount - 1).any { path.getName(it).toString() == name }
+
+        /**
+         * A class named as a test is one unless it is under a main directory, and the classes under a test directory
+         * are never production ones
+         */
+        val isTest = productionClassNames(className).isNotEmpty() && !inDirectory("main")
+        val isProduction = !isTest && !inDirectory("test") && !inDirectory("tests")
+    }
+
+    /**
+     * The production files sharing a simple class name. They are also indexed by qualified name, for each number
+     * of segments that a qualified name of the class has been looked up with
+     */
+    private class NameIndex {
+        val sources = ArrayList<SourceFile>(1)
+        private val byQualifiedName = ConcurrentHashMap<Int, Map<String, SourceFile>>()
+
+        fun find(qualifiedName: String): SourceFile? {
+            val segments = qualifiedName.count { it == '.' } + 1
+            return byQualifiedName.computeIfAbsent(segments) { count ->
+                val index = HashMap<String, SourceFile>()
+                for (source in sources.filter { it.path.nameCount >= count }) {
+                    val path = source.path.subpath(source.path.nameCount - count, source.path.nameCount)
+                    index.putIfAbsent(path.joinToString(".").removeSuffix(JAVA_EXTENSION), source)
+                }
+                index
+            }[qualifiedName]
+        }
+    }
+
+    /**
+     * Returns the pairs of the repository, sorted by the path of the test. Both the walk and the pairing run on a
+     * pool of the given number of threads
+     */
+    fun scan(): List<InputData> {
+        val pool = ForkJoinPool(threads)
+        try {
+            val sources = walk(pool).sortedBy { it.path.toString() }
+            val index = HashMap<String, NameIndex>()
+            for (source in sources.filter { it.isProduction }) {
+                index.getOrPut(source.className) { NameIndex() }.sources.add(source)
+            }
+            val application = repository.absoluteFile.normalize().name
+            // a parallel stream started from a task of the pool runs in that pool, not in the common one
+            return pool.submit(Callable {
+                sources
+                    .filter { it.isTest }
+                    .parallelStream()
+                    .map { test ->
+                        findProductionClass(test, index)
+                            ?.let { InputData(application, test.path.toString(), it.path.toString()) }
+                    }
+                    .collect(Collectors.toList())
+            }).get().filterNotNull()
+        } finally {
+            pool.shutdown()
+        }
+    }
+
+    /**
+     * Collects the java files of the repository, skipping the hidden directories
+     */
+    private fun walk(pool: ForkJoinPool): List<SourceFile> {
+        val sources = ConcurrentLinkedQueue<SourceFile>()
+        pool.invoke(DirectoryWalk(repository.toPath(), sources))
+        return sources.toList()
+    }
+
+    /**
+     * Walks a directory and its subdirectories. A directory or an entry that cannot be read is reported and skipped,
+     * so that the rest of the repository is still walked
+     */
+    private class DirectoryWalk(private val directory: Path,
+                                private val sources: ConcurrentLinkedQueue<SourceFile>) : RecursiveAction() {
+        override fun compute() {
+            val subdirectories = ArrayList<DirectoryWalk>()
+            try {
+                Files.newDirectoryStream(directory).use { entries ->
+                    for (entry in entries) {
+                        val name = entry.fileName.toString()
+                        val attributes = try {
+                            Files.readAttributes(entry, BasicFileAttributes::class.java, LinkOption.NOFOLLOW_LINKS)
+                        } catch (e: IOException) {
+                            System.err.println("Could not read $entry: ${e.message}")
+                            continue
+                        }
+                        if (attributes.isDirectory && !name.startsWith(".")) {
+                            subdirectories.add(DirectoryWalk(entry, sources))
+                        } else if (attributes.isRegularFile && name.endsWith(JAVA_EXTENSION)) {
+                            sources.add(SourceFile(entry, name.removeSuffix(JAVA_EXTENSION)))
+                        }
+                    }
+                }
+            } catch (e: IOException) {
+                System.err.println("Could not read the directory $directory: ${e.message}")
+            }
+            invokeAll(subdirectories)
+        }
+    }
+
+    private fun findProductionClass(test: SourceFile, index: Map<String, NameIndex>): SourceFile? {
+        val names = productionClassNames(test.className).mapNotNull { index[it] }
+        if (names.sumOf { it.sources.size } <= 1)
+            return names.firstOrNull()?.sources?.firstOrNull()
+        val header = readHeader(test.path)
+        for (name in names) {
+            val className = name.sources[0].className
+            val imported = header.imports.firstOrNull { it.endsWith(".$className") }
+            imported?.let { name.find(it) }?.let { return it }
+            header.packageName?.let { name.find("$it.$className") }?.let { return it }
+        }
+        return names.flatMap { it.sources }.maxWithOrNull(compareBy<SourceFile> { commonPrefixLength(it.path, test.path) }
+            .thenByDescending { it.path.toString() })
+    }
+
+    private class Header(val packageName: String?, val imports: List<String>)
+
+    /**
+     * Reads the package and the imported classes of a source file, stopping at the first type declaration. The
+     * comments are skipped, so that a license or a Javadoc mentioning a class does not end the header early.
+     * The file is decoded as UTF-8 replacing malformed input, as the detector does, so that a source in another
+     * encoding is still read; a file that cannot be read has an empty header.
+     */
+    private fun readHeader(path: Path): Header {
+        var packageName: String? = null
+        val imports = ArrayList<String>()
+        try {
+            InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8).buffered().useLines { lines ->
+                var inComment = false
+                for (text in lines) {
+                    var line = text.trim()
+                    if (inComment) {
+                        val end = line.indexOf("*/")
+                        if (end < 0)
+                            continue
+                        line = line.substring(end + 2).trim()
+                        inComment = false
+                    }
+                    if (line.startsWith("/*")) {
+                        val end = line.indexOf("*/", 2)
+                        if (end < 0) {
+                            inComment = true
+                            continue
+                        }
+                        line = line.substring(end + 2).trim()
+                    }
+                    if (line.startsWith("//")) {
+                        continue
+                    } else if (line.startsWith("package ")) {
+                        packageName = line.removePrefix("package ").removeSuffix(";").trim()
+                    } else if (line.startsWith("import ") && !line.startsWith("import static ")) {
+                        imports.add(line.removePrefix("import ").removeSuffix(";").trim())
+                    } else if (TYPE_DECLARATION.containsMatchIn(line)) {
+                        break
+                    }
+                }
+            }
+        } catch (e: IOException) {
+            System.err.println("Could not read $path: ${e.message}")
+        }
+        return Header(packageName, imports)
+    }
+
+    private fun commonPrefixLength(first: Path, second: Path): Int {
+        var length = 0
+        while (length < first.nameCount && length < second.nameCount && first.getName(length) == second.getName(length))
+            length++
+        return length
+    }
+
+    companion object {
+        private const val JAVA_EXTENSION = ".java"
+        private val TYPE_DECLARATION = Regex("\\b(class|interface|enum|record)\\s")
+        private val TEST_SUFFIXES = listOf("Tests", "TestCase", "Test", "IT")
+        private const val TEST_PREFIX = "Test"
+
+        /**
+         * The names of the production class that a class with the given name would test, none if it is not a test
+         */
+        fun productionClassNames(className: String): List<String> {
+            val names = ArrayList<String>(2)
+            TEST_SUFFIXES.firstOrNull { className.length > it.length && className.endsWith(it) }
+                ?.let { names.add(className.removeSuffix(it)) }
+            if (className.length > TEST_PREFIX.length && className.startsWith(TEST_PREFIX) &&
+                className[TEST_PREFIX.length].isUpperCase())
+                names.add(className.removePrefix(TEST_PREFIX))
+            return names
+        }
+    }
+}
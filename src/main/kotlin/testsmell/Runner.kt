@@ -2,31 +2,61 @@
 package testsmell
 
 import com.github.ajalt.clikt.core.CliktCommand
+import com.github.ajalt.clikt.core.UsageError
 import com.github.ajalt.clikt.parameters.options.default
 import com.github.ajalt.clikt.parameters.options.option
 import com.github.ajalt.clikt.parameters.types.choice
 import com.github.ajalt.clikt.parameters.types.file
+import com.github.ajalt.clikt.parameters.types.int
+import com.github.ajalt.clikt.parameters.types.long
+import com.github.ajalt.clikt.parameters.types.restrictTo
 import com.github.doyaaaaaken.kotlincsv.dsl.csvReader
 import detection.Detection
-import detection.DetectionResult
+import detection.DetectionPipeline
+import detection.ResultCache
 import io.CSVWriter
 import io.InputData
+import io.RepositoryScanner
 import thresholds.DefaultThresholds
 import thresholds.SpadiniThresholds
 import thresholds.Thresholds
 import java.io.File
 
 class DetectorRunner : CliktCommand() {
-    private val inputFile: File? by option("-f", "--file", help = "The csv input file").file()
+    private val inputFile: File? by option("-f", "--file", help = "The csv input file, - to read it from the standard input").file()
     val thresholds: String by option("-t", "--thresholds", help = "The threshold to use for the detection")
         .choice("default", "spadini").default("default")
     private val granularity: String by option("-g", "--granularity", help = "Boolean value of numerical for the detection")
         .choice("boolean", "numerical").default("boolean")
     private val output: String by option("-o", "--output", help = "").default("test-smells.csv")
+    private val threads: Int by option("--threads", help = "The number of threads used for the detection")
+        .int().restrictTo(min = 1).default(1)
+    private val parseThreads: Int? by option("--parse-threads", help = "The number of threads used to parse the " +
+            "files, by default as many as the detection ones").int().restrictTo(min = 1)
+    private val readThreads: Int by option("--read-threads", help = "The number of threads used to read the files")
+        .int().restrictTo(min = 1).default(1)
+    private val repository: File? by option("--repo", help = "The repository to analyze in place of an input file; " +
+            "its test classes are paired with the production classes by name").file(mustExist = true, canBeFile = false)
+    private val cacheDirectory: File? by option("--cache", help = "The directory keeping the results between runs; " +
+            "only the pairs whose files changed are analyzed again. The results of another build of the tool are " +
+            "not reused, so the cache can be cleared after an upgrade").file(canBeFile = false)
+    private val mode: String by option("--mode", help = "How deep the files are analyzed: fast does not resolve " +
+            "symbols nor read the production files, deep resolves symbols against the classpath as well")
+        .choice("fast", "standard", "deep").default("standard")
+    private val classpath: String? by option("--classpath", help = "The jars, or directories of jars, whose types " +
+            "are resolved in deep mode, separated by ${File.pathSeparator}")
+    private val resolutionAttempts: Int? by option("--resolution-attempts", help = "The number of symbol resolutions " +
+            "allowed in each test file before falling back to syntactic heuristics, " +
+            "${ResolutionBudget.DEFAULT.maxAttempts} by default and unbounded in deep mode")
+        .int().restrictTo(min = 0)
+    private val resolutionTime: Long? by option("--resolution-time", help = "The milliseconds of symbol resolution " +
+            "allowed in each test file before falling back to syntactic heuristics, " +
+            "${ResolutionBudget.DEFAULT.maxMillis} by default and unbounded in deep mode")
+        .long().restrictTo(min = 0)
 
     override fun run() {
         val thresholdStrategy: Thresholds = if (thresholds == "default") DefaultThresholds() else SpadiniThresholds()
-        val granularityFunction: ((AbstractSmell) -> Any) = {
+        val granularityFunction: ((SmellResult) -> Any) = {
             if (granularity == "boolean") {
                 it.hasSmell()
             } else {
@@ -34,32 +64,87 @@ class DetectorRunner : CliktCommand() {
             }
         }
 
-        inputFile?.let {
-            val inputData: List<InputData> = readInputFile()
-            val writer = CSVWriter(output)
-            for (input in inputData) {
-                val detection = Detection(
-                    project = input.application,
-                    testClassPath = input.testPath,
-                    productionClassPath = input.productionPath,
-                    testSmellDetector = TestSmellDetector(thresholdStrategy)
-                )
-                val detectedSmell: DetectionResult = detection.detectSmells(granularityFunction)
-                writer.writeResult(detectedSmell)
+        if (inputFile != null && repository != null)
+            throw UsageError("Either an input file or a repository can be given, not both")
+        val analysisMode = AnalysisMode.valueOf(mode.uppercase())
+        if (classpath != null && analysisMode != AnalysisMode.DEEP)
+            throw UsageError("A classpath can only be given in deep mode")
+        if (inputFile != null || repository != null) {
+            val defaultBudget = if (analysisMode == AnalysisMode.DEEP) ResolutionBudget.UNLIMITED else ResolutionBudget.DEFAULT
+            val resolutionBudget = ResolutionBudget(resolutionAttempts ?: defaultBudget.maxAttempts,
+                resolutionTime ?: defaultBudget.maxMillis)
+            val jars = classpathJars()
+            val detector = TestSmellDetector(thresholdStrategy)
+            detector.setResolutionBudget(resolutionBudget)
+            detector.setAnalysisMode(analysisMode, jars.map { it.toPath() })
+            reportPrecisions(detector)
+            CSVWriter(detector.testSmellNames, output).use { writer ->
+                val cache = cacheDirectory?.let { dir ->
+                    ResultCache(dir, thresholdStrategy, granularity, resolutionBudget, analysisMode, jars)
+                }
+                val pipeline = DetectionPipeline(readThreads, parseThreads ?: threads, threads)
+                readInput { inputData ->
+                    val pairs = inputData.map { input -> newDetection(input, detector) }
+                    pipeline.run(pairs, granularityFunction, cache) { result -> writer.writeResult(result) }
+                }
             }
-        } ?: println("No input file specified")
+        } else {
+            println("No input file specified")
+        }
+    }
+
+    /**
+     * Returns the jars of the classpath: its entries that are files, and the jars found directly in its directories
+     */
+    private fun classpathJars(): List<File> {
+        val entries = classpath?.split(File.pathSeparator)?.filter { it.isNotEmpty() }?.map { File(it) } ?: emptyList()
+        return entries.flatMap { entry ->
+            when {
+                entry.isDirectory -> entry.listFiles { file -> file.isFile && file.name.endsWith(".jar") }
+                    ?.sortedBy { it.name } ?: emptyList()
+                entry.isFile -> listOf(entry)
+                else -> throw UsageError("The classpath entry $entry does not exist")
+            }
+        }
     }
 
     /**
-     * Reads the input file and returns a list of the files to analyze
+     * Tells on the standard error which smells the mode computes at which precision
      */
-    private fun readInputFile(): List<InputData> {
-        val rows: List<List<String>> = csvReader().readAll(inputFile!!)
-        val inputData = mutableListOf<InputData>()
-        for (row in rows)
-            inputData.add(InputData(application = row[0], testPath = row[1], productionPath = row[2]))
-        return inputData
+    private fun reportPrecisions(detector: TestSmellDetector) {
+        System.err.println("Analysis mode: ${detector.analysisMode.name.lowercase()}")
+        detector.precisions.entries.groupBy({ it.value }, { it.key }).forEach { (precision, smells) ->
+            System.err.println("  ${precision.name.lowercase().replace('_', ' ')}: ${smells.joinToString(", ")}")
+        }
     }
+
+    private fun newDetection(input: InputData, detector: TestSmellDetector) = Detection(
+        project = input.application,
+        testClassPath = input.testPath,
+        productionClassPath = input.productionPath,
+        testSmellDetector = detector
+    )
+
+    /**
+     * Hands the files to analyze to [read], finding them in the repository if one is given
+     */
+    private fun <T> readInput(read: (Sequence<InputData>) -> T): T {
+        return repository?.let { read(RepositoryScanner(it, threads).scan().asSequence()) } ?: readInputFile(read)
+    }
+
+    /**
+     * Reads the input file, or the standard input if the file is "-", and hands the files to analyze to [read].
+     * The rows are read one at a time while the sequence is consumed, so the input is never held in memory
+     */
+    private fun <T> readInputFile(read: (Sequence<InputData>) -> T): T {
+        val input = if (inputFile!!.path == "-") System.`in` else inputFile!!.inputStream()
+        return csvReader().open(input) {
+            read(readAllAsSequence().map { row ->
+                InputData(application = row[0], testPath = row[1], productionPath = row[2])
+            })
+        }
+    }
+
 }
 
 fun main(args: Array<String>) = DetectorRunner().main(args)
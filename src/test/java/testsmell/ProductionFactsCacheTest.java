@@ -0,0 +1,72 @@
+package testsmell;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductionFactsCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final ProductionFactsCache cache = new ProductionFactsCache(1000);
+    private final AtomicInteger parsed = new AtomicInteger();
+
+    private static class MethodCollector extends ProductionFacts.Collector {
+        @Override
+        public boolean visit(ClassOrInterfaceDeclaration n) {
+            setClassName(n.getNameAsString());
+            return true;
+        }
+
+        @Override
+        public boolean visit(MethodDeclaration n) {
+            addMethod(n);
+            return false;
+        }
+    }
+
+    private ProductionFacts getFacts(Path file) throws IOException {
+        Map<Class<?>, ProductionFacts> facts = cache.getFacts(file, List.of(new MethodCollector()), () -> {
+            parsed.incrementAndGet();
+            return StaticJavaParser.parse(file);
+        });
+        return facts.get(MethodCollector.class);
+    }
+
+    @Test
+    void parsesAFileOnce() throws IOException {
+        Path file = Files.write(directory.resolve("Foo.java"),
+                "class Foo { void bar(int x) {} }".getBytes(StandardCharsets.UTF_8));
+        ProductionFacts facts = getFacts(file);
+        assertEquals("Foo", facts.getClassName());
+        assertTrue(facts.hasMethod("bar", 1));
+        assertFalse(facts.hasMethod("bar", 0));
+        assertSame(facts, getFacts(file));
+        assertEquals(1, parsed.get());
+    }
+
+    @Test
+    void parsesAModifiedFileAgain() throws IOException {
+        Path file = Files.write(directory.resolve("Foo.java"),
+                "class Foo { void bar() {} }".getBytes(StandardCharsets.UTF_8));
+        getFacts(file);
+        Files.write(file, "class Foo { void baz() {} }".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        assertTrue(getFacts(file).hasMethod("baz", 0));
+        assertEquals(2, parsed.get());
+    }
+}
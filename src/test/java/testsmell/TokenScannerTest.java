@@ -0,0 +1,42 @@
+package testsmell;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenScannerTest {
+
+    private final TokenScanner scanner = new TokenScanner(List.of("sleep", "Thread", "file", "sqlitedatabase", "ab", "b"));
+
+    private Set<String> scan(String source) {
+        return scanner.scan(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void findsOverlappingTokensIgnoringCase() {
+        assertEquals(Set.of("sleep", "thread", "ab", "b"), scan("Thread.SLEEP(1); // è ab"));
+    }
+
+    @Test
+    void findsTokensEndingInsideLongerOnes() {
+        assertEquals(Set.of("file"), scan("new FileOutputStream(f)"));
+        assertEquals(Set.of("sqlitedatabase", "ab", "b"), scan("SQLiteDataBase"));
+    }
+
+    @Test
+    void findsNothingInAnUnrelatedSource() {
+        assertEquals(Set.of(), scan("class Foo { int x = 1; }"));
+    }
+
+    @Test
+    void scansFromThePositionOfTheBuffer() {
+        ByteBuffer source = ByteBuffer.wrap("sleep file".getBytes(StandardCharsets.UTF_8));
+        source.position(6);
+        assertEquals(Set.of("file"), scanner.scan(source));
+    }
+}
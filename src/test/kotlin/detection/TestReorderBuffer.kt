@@ -0,0 +1,41 @@
+package detection
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class TestReorderBuffer {
+
+    @Test
+    fun `values completed in any order are taken in sequence`() {
+        val buffer = ReorderBuffer<String>(3)
+        (0L until 3L).forEach { buffer.admit(it) }
+        buffer.complete(2, "c")
+        buffer.complete(0, "a")
+        buffer.complete(1, "b")
+        buffer.close(3)
+        Assertions.assertEquals(listOf("a", "b", "c"), generateSequence { buffer.take() }.toList())
+    }
+
+    @Test
+    fun `values completed concurrently are taken in sequence`() {
+        val total = 200L
+        val buffer = ReorderBuffer<Long>(4)
+        val executor = Executors.newFixedThreadPool(4)
+        executor.execute {
+            for (sequence in 0L until total) {
+                buffer.admit(sequence)
+                executor.execute {
+                    Thread.sleep(sequence % 3)
+                    buffer.complete(sequence, sequence)
+                }
+            }
+            buffer.close(total)
+        }
+        val taken = generateSequence { buffer.take() }.toList()
+        executor.shutdown()
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS))
+        Assertions.assertEquals((0L until total).toList(), taken)
+    }
+}
@@ -0,0 +1,45 @@
+package detection
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import testsmell.AnalysisMode
+import testsmell.ResolutionBudget
+import thresholds.DefaultThresholds
+import java.io.File
+
+class TestResultCache {
+
+    @TempDir
+    lateinit var directory: File
+
+    private val key = "ab".padEnd(64, '0')
+
+    private fun cache() = ResultCache(directory, DefaultThresholds(), "boolean", ResolutionBudget.DEFAULT,
+        AnalysisMode.STANDARD, emptyList())
+
+    private fun store(json: String) {
+        File(directory, "ab").mkdirs()
+        File(File(directory, "ab"), "$key.json").writeText(json)
+    }
+
+    @Test
+    fun `A stored result is read back`() {
+        val result = DetectionResult("app", "FooTest.java", "FooTest.java", "Foo.java", "FooTest.java", "Foo.java", 2,
+            listOf("Assertion Roulette" to "true", "Eager Test" to "false"), false)
+        cache().put(key, result)
+        val entry = cache().get(key)!!
+        Assertions.assertEquals(2, entry.numberOfTestMethods)
+        Assertions.assertEquals(result.smellResult, entry.smellResult())
+    }
+
+    @Test
+    fun `An entry missing some fields is not served`() {
+        for (json in listOf("{}", "{\"numberOfTestMethods\":2,\"smells\":[\"Eager Test\"]}",
+                "{\"numberOfTestMethods\":2,\"smells\":[\"Eager Test\"],\"values\":[]}",
+                "{\"numberOfTestMethods\":2,\"smells\":[\"Eager Test\"],\"values\":[null]}", "")) {
+            store(json)
+            Assertions.assertNull(cache().get(key), json)
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package io
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+import java.nio.charset.StandardCharsets
+
+class TestRepositoryScanner {
+
+    @TempDir
+    lateinit var repository: File
+
+    private fun write(path: String, content: String) = write(path, content.toByteArray(StandardCharsets.UTF_8))
+
+    private fun write(path: String, content: ByteArray) {
+        val file = File(repository, path)
+        file.parentFile.mkdirs()
+        file.writeBytes(content)
+    }
+
+    private fun scan(): Map<String, String> = RepositoryScanner(repository, 2).scan().associate {
+        File(it.testPath).relativeTo(repository).path to File(it.productionPath).relativeTo(repository).path
+    }
+
+    @Test
+    fun `Tests are paired by their suffix or prefix`() {
+        write("src/main/java/a/Foo.java", "package a;\npublic class Foo {}\n")
+        write("src/main/java/a/Bar.java", "package a;\npublic class Bar {}\n")
+        write("src/main/java/a/Baz.java", "package a;\npublic class Baz {}\n")
+        write("src/main/java/a/Qux.java", "package a;\npublic class Qux {}\n")
+        write("src/test/java/a/FooTest.java", "package a;\npublic class FooTest {}\n")
+        write("src/test/java/a/TestBar.java", "package a;\npublic class TestBar {}\n")
+        write("src/test/java/a/BazIT.java", "package a;\npublic class BazIT {}\n")
+        write("src/test/java/a/QuxTests.java", "package a;\npublic class QuxTests {}\n")
+        write("src/test/java/a/MissingTest.java", "package a;\npublic class MissingTest {}\n")
+        write("src/test/java/a/Testing.java", "package a;\npublic class Testing {}\n")
+
+        Assertions.assertEquals(mapOf(
+            "src/test/java/a/BazIT.java" to "src/main/java/a/Baz.java",
+            "src/test/java/a/FooTest.java" to "src/main/java/a/Foo.java",
+            "src/test/java/a/QuxTests.java" to "src/main/java/a/Qux.java",
+            "src/test/java/a/TestBar.java" to "src/main/java/a/Bar.java"
+        ), scan())
+    }
+
+    @Test
+    fun `Ambiguous names are told apart by the imports, then the package`() {
+        write("src/main/java/x/Util.java", "package x;\npublic class Util {}\n")
+        write("src/main/java/y/Util.java", "package y;\npublic class Util {}\n")
+        write("src/test/java/y/UtilTest.java", "package y;\n\npublic class UtilTest {}\n")
+        write("src/test/java/z/UtilTest.java", "package z;\n\nimport x.Util;\n\npublic class UtilTest {}\n")
+
+        Assertions.assertEquals(mapOf(
+            "src/test/java/y/UtilTest.java" to "src/main/java/y/Util.java",
+            "src/test/java/z/UtilTest.java" to "src/main/java/x/Util.java"
+        ), scan())
+    }
+
+    @Test
+    fun `A header that is not UTF-8 is still read`() {
+        write("src/main/java/x/Util.java", "package x;\npublic class Util {}\n")
+        write("src/main/java/y/Util.java", "package y;\npublic class Util {}\n")
+        // an ISO-8859-1 comment before the imports
+        write("src/test/java/z/UtilTest.java",
+            "// café\npackage z;\n\nimport y.Util;\n\npublic class UtilTest {}\n".toByteArray(StandardCharsets.ISO_8859_1))
+
+        Assertions.assertEquals(mapOf("src/test/java/z/UtilTest.java" to "src/main/java/y/Util.java"), scan())
+    }
+
+    @Test
+    fun `Comments mentioning a type do not end the header`() {
+        write("src/main/java/x/Util.java", "package x;\npublic class Util {}\n")
+        write("src/main/java/y/Util.java", "package y;\npublic class Util {}\n")
+        write("src/test/java/z/UtilTest.java", """
+            /*
+             * Test class for the Util of y, licensed under the Apache License
+             */
+            package z;
+
+            // enum values are checked as well
+            /** The interface under test */ import y.Util;
+
+            public class UtilTest {}
+        """.trimIndent())
+
+        Assertions.assertEquals(mapOf("src/test/java/z/UtilTest.java" to "src/main/java/y/Util.java"), scan())
+    }
+}
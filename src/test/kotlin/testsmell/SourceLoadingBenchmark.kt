@@ -0,0 +1,68 @@
+package testsmell
+
+import com.github.javaparser.Provider
+import com.github.javaparser.Providers
+import java.io.ByteArrayInputStream
+import java.io.File
+import java.io.FileInputStream
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+
+/**
+ * Measures, per MB of source, the cost of reading the sources and of decoding them into the characters read by the
+ * parser. Three ways are compared: a stream read decoded by the parser, as the files were loaded before; the sources
+ * of [TestSmellDetector.readSource] decoded by [TestSmellDetector.decode], as they are loaded now; and the same
+ * sources decoded at once by the charset into a string. The files mapped by [TestSmellDetector.readSource] are also
+ * measured apart. A mapped file is only read from the page cache while it is decoded, so its read time is the one of
+ * the mapping alone.
+ *
+ * It is a program, not one of the tests: after `mvn test-compile`, run it with the test and runtime classpath, giving
+ * the source files or directories to load, e.g. `java -cp target/test-classes:target/classes:<dependencies>
+ * testsmell.SourceLoadingBenchmarkKt src/main/java`.
+ */
+fun main(args: Array<String>) {
+    val files = args.flatMap { File(it).walk().filter { file -> file.isFile && file.name.endsWith(".java") }.toList() }
+    measure("all files", files)
+    measure("mapped files", files.filter { it.length() >= TestSmellDetector.MAPPED_SOURCE_SIZE })
+}
+
+private class Loader(val name: String, val read: (File) -> Any, val decode: (Any) -> Provider)
+
+private val loaders = listOf(
+    Loader("stream", { file -> FileInputStream(file).use { it.readAllBytes() } },
+        { bytes -> Providers.provider(ByteArrayInputStream(bytes as ByteArray), StandardCharsets.UTF_8) }),
+    Loader("decode", { file -> TestSmellDetector.readSource(file.path) },
+        { source -> TestSmellDetector.decode(source as ByteBuffer) }),
+    Loader("charset", { file -> TestSmellDetector.readSource(file.path) },
+        { source -> Providers.provider(StandardCharsets.UTF_8.decode((source as ByteBuffer).duplicate()).toString()) })
+)
+
+private fun measure(title: String, files: List<File>) {
+    val megabytes = files.sumOf { it.length() } / (1024.0 * 1024.0)
+    println("$title: ${files.size} files, %.2f MB".format(megabytes))
+    if (files.isEmpty())
+        return
+
+    val buffer = CharArray(8192)
+    fun drain(provider: Provider) {
+        provider.use { while (it.read(buffer, 0, buffer.size) >= 0) Unit }
+    }
+    fun millisPerMegabyte(run: () -> Unit): Double {
+        val start = System.nanoTime()
+        repeat(REPETITIONS) { run() }
+        return (System.nanoTime() - start) / 1_000_000.0 / (megabytes * REPETITIONS)
+    }
+
+    // the first round warms up the JIT and the page cache
+    repeat(ROUNDS) { round ->
+        for (loader in loaders) {
+            val read = millisPerMegabyte { files.forEach { loader.read(it) } }
+            val total = millisPerMegabyte { files.forEach { drain(loader.decode(loader.read(it))) } }
+            if (round > 0)
+                println("  %-7s read %.2f ms/MB, read and decode %.2f ms/MB".format(loader.name, read, total))
+        }
+    }
+}
+
+private const val ROUNDS = 4
+private const val REPETITIONS = 20
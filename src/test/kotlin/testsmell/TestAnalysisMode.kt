@@ -0,0 +1,92 @@
+package testsmell
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import thresholds.DefaultThresholds
+import java.io.File
+
+class TestAnalysisMode {
+
+    @TempDir
+    lateinit var directory: File
+
+    private val productionSource = """
+        package a;
+
+        public class Foo {
+            public int run() { return 1; }
+            public int stop() { return 0; }
+        }
+    """.trimIndent()
+
+    // the messages are only known to be strings once the variable is resolved
+    private val testSource = """
+        package a;
+
+        public class FooTest {
+            @Test
+            public void testFoo() {
+                String message = "foo";
+                Foo foo = new Foo();
+                assertEquals(message, 1, foo.run());
+                assertEquals(message, 0, foo.stop());
+            }
+        }
+    """.trimIndent()
+
+    private fun precisions(mode: AnalysisMode): Map<String, AnalysisMode.Precision> {
+        val detector = TestSmellDetector(DefaultThresholds())
+        detector.setAnalysisMode(mode, emptyList())
+        return detector.precisions
+    }
+
+    @Test
+    fun `Fast mode leaves out the smells needing the production file`() {
+        val precisions = precisions(AnalysisMode.FAST)
+        Assertions.assertEquals(AnalysisMode.Precision.NOT_COMPUTED, precisions["Eager Test"])
+        Assertions.assertEquals(AnalysisMode.Precision.NOT_COMPUTED, precisions["New Eager Test"])
+        Assertions.assertEquals(AnalysisMode.Precision.SYNTACTIC, precisions["Assertion Roulette"])
+        Assertions.assertFalse(precisions.containsValue(AnalysisMode.Precision.SEMANTIC))
+    }
+
+    @Test
+    fun `Standard mode resolves the symbols of the smells using them`() {
+        val precisions = precisions(AnalysisMode.STANDARD)
+        Assertions.assertEquals(AnalysisMode.Precision.SEMANTIC, precisions["Assertion Roulette"])
+        Assertions.assertEquals(AnalysisMode.Precision.SEMANTIC, precisions["General Fixture"])
+        Assertions.assertEquals(AnalysisMode.Precision.SYNTACTIC, precisions["Eager Test"])
+        Assertions.assertFalse(precisions.containsValue(AnalysisMode.Precision.NOT_COMPUTED))
+    }
+
+    private fun detect(mode: AnalysisMode): Pair<ParsedTestFile, TestFile> {
+        val productionFile = File(directory, "Foo.java").apply { writeText(productionSource) }
+        val testFile = File(directory, "FooTest.java").apply { writeText(testSource) }
+        val detector = TestSmellDetector(DefaultThresholds())
+        detector.setAnalysisMode(mode, emptyList())
+        val parsed = detector.parse(TestFile("app", testFile.path, productionFile.path),
+            TestSmellDetector.readSource(testFile.path), TestSmellDetector.readSource(productionFile.path))
+        return parsed to detector.detectSmells(parsed)
+    }
+
+    private fun TestFile.smell(name: String): SmellResult? = testSmells.firstOrNull { it?.smellName == name }
+
+    @Test
+    fun `Fast mode neither reads the production file nor resolves the symbols`() {
+        val (parsed, testFile) = detect(AnalysisMode.FAST)
+        Assertions.assertNull(parsed.productionFacts)
+        Assertions.assertNull(testFile.smell("Eager Test"))
+        // the messages are told from the syntax, as once the budget is used up, without the budget being exceeded
+        Assertions.assertTrue(testFile.smell("Assertion Roulette")!!.hasSmell())
+        Assertions.assertFalse(testFile.isResolutionBudgetExceeded)
+    }
+
+    @Test
+    fun `Standard mode reads the production file and resolves the symbols`() {
+        val (parsed, testFile) = detect(AnalysisMode.STANDARD)
+        Assertions.assertNotNull(parsed.productionFacts)
+        Assertions.assertTrue(testFile.smell("Eager Test")!!.hasSmell())
+        Assertions.assertFalse(testFile.smell("Assertion Roulette")!!.hasSmell())
+        Assertions.assertFalse(testFile.isResolutionBudgetExceeded)
+    }
+}
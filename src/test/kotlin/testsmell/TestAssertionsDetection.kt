@@ -16,7 +16,7 @@ class TestAssertionsDetection {
     private lateinit var testCompilationUnit: CompilationUnit
     private lateinit var productionCompilationUnit: CompilationUnit
     private lateinit var testFile: TestFile
-    private val booleanGranularity: ((AbstractSmell) -> Any) = { it.hasSmell() }
+    private val booleanGranularity: ((SmellResult) -> Any) = { it.hasSmell() }
 
     @BeforeEach
     fun setup() {
@@ -44,10 +44,9 @@ class TestAssertionsDetection {
      */
     @Test
     fun `Assertions counting into eager detection`() {
-        val smell = EagerTest(DefaultThresholds())
-        smell.runAnalysis(testCompilationUnit, productionCompilationUnit,
+        val result = EagerTest(DefaultThresholds()).runAnalysis(testCompilationUnit, productionCompilationUnit,
             testFile.testFileNameWithoutExtension, testFile.productionFileNameWithoutExtension)
-        Mockito.`when`(testFile.testSmells).thenReturn(listOf(smell))
+        Mockito.`when`(testFile.testSmells).thenReturn(listOf(result))
         val values = testFile.testSmells.map { booleanGranularity.invoke(it) }
         Assertions.assertTrue(values[0] as Boolean)
     }
@@ -0,0 +1,73 @@
+package testsmell
+
+import com.github.javaparser.StaticJavaParser
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import testsmell.smell.DependentTest
+import thresholds.DefaultThresholds
+
+class TestDependentTestDetection {
+
+    private fun dependentTests(source: String): Set<String> {
+        val result = DependentTest(DefaultThresholds()).runAnalysis(StaticJavaParser.parse(source), null,
+            "FooTest", "Foo")
+        return result.result["Dependent Test"] ?: emptySet()
+    }
+
+    @Test
+    fun `Test methods calling other test methods directly or through helpers`() {
+        val dependent = dependentTests("""
+            public class FooTest {
+                @Test
+                public void testCreate() {
+                    foo.create();
+                }
+
+                @Test
+                public void testUpdate() {
+                    this.testCreate();
+                }
+
+                @Test
+                public void testDelete() {
+                    prepare();
+                }
+
+                private void prepare() {
+                    helper();
+                }
+
+                private void helper() {
+                    testCreate();
+                }
+            }
+        """.trimIndent())
+        Assertions.assertEquals(setOf("testUpdate", "testDelete"), dependent)
+    }
+
+    @Test
+    fun `Test methods calling only themselves and helpers are independent`() {
+        val dependent = dependentTests("""
+            public class FooTest {
+                @Test
+                public void testRetry() {
+                    if (retry()) testRetry();
+                }
+
+                @Test
+                public void testOther() {
+                    foo.testRetry();
+                }
+
+                private boolean retry() {
+                    return testRetryCount() > 0;
+                }
+
+                private int testRetryCount() {
+                    return 1;
+                }
+            }
+        """.trimIndent())
+        Assertions.assertEquals(emptySet<String>(), dependent)
+    }
+}
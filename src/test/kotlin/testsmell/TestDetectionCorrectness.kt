@@ -25,8 +25,8 @@ class TestDetectionCorrectness {
     private lateinit var testCompilationUnit: CompilationUnit
     private lateinit var productionCompilationUnit: CompilationUnit
     private lateinit var testFile: TestFile
-    private val booleanGranularity: ((AbstractSmell) -> Any) = { it.hasSmell() }
-    private val numericGranularity: ((AbstractSmell) -> Any) = { it.numberOfSmellyTests }
+    private val booleanGranularity: ((SmellResult) -> Any) = { it.hasSmell() }
+    private val numericGranularity: ((SmellResult) -> Any) = { it.numberOfSmellyTests }
 
     @BeforeEach
     fun setup() {
@@ -0,0 +1,63 @@
+package testsmell
+
+import com.github.javaparser.JavaParser
+import com.github.javaparser.ParserConfiguration
+import com.github.javaparser.ast.CompilationUnit
+import com.github.javaparser.symbolsolver.JavaSymbolSolver
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import testsmell.smell.GeneralFixture
+import thresholds.DefaultThresholds
+
+class TestResolutionBudget {
+
+    private val source = """
+        public class FooTest {
+            private Foo foo;
+            private Bar bar;
+
+            @Before
+            public void setUp() {
+                foo = new Foo();
+                this.bar = new Bar();
+            }
+
+            @Test
+            public void testFoo() {
+                foo.run();
+            }
+
+            @Test
+            public void testBoth() {
+                foo.run();
+                bar.run();
+            }
+        }
+    """.trimIndent()
+
+    private fun parse(): CompilationUnit {
+        val configuration = ParserConfiguration().setSymbolResolver(JavaSymbolSolver(ReflectionTypeSolver(false)))
+        return JavaParser(configuration).parse(source).result.get()
+    }
+
+    private fun generalFixture(context: TestFileContext): Set<String> {
+        val result = FusedVisitor.analyze(listOf(GeneralFixture(DefaultThresholds())), parse(), null,
+            "FooTest", "Foo", null, context)[0]
+        return result.result["General Fixture"] ?: emptySet()
+    }
+
+    @Test
+    fun `Setup fields are resolved within the budget`() {
+        val context = TestFileContext(ResolutionBudget.UNLIMITED)
+        Assertions.assertEquals(setOf("testFoo"), generalFixture(context))
+        Assertions.assertFalse(context.resolutions.isExhausted)
+    }
+
+    @Test
+    fun `Setup fields are told from the syntax once the budget is used up`() {
+        val context = TestFileContext(ResolutionBudget(0, 0))
+        Assertions.assertEquals(setOf("testFoo"), generalFixture(context))
+        Assertions.assertTrue(context.resolutions.isExhausted)
+    }
+}
@@ -0,0 +1,69 @@
+package testsmell
+
+import com.github.javaparser.Provider
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+
+class TestSourceLoading {
+
+    @TempDir
+    lateinit var directory: File
+
+    /**
+     * A source of at least the given size, mixing multi-byte characters with bytes that are not UTF-8. The lines
+     * grow with their number, so some of them straddle the chunks a mapped source is decoded in.
+     */
+    private fun source(size: Int): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        var line = 0
+        while (bytes.size() < size) {
+            bytes.write("// line ${line++}: café, naïve, €, 😀 ".toByteArray(StandardCharsets.UTF_8))
+            // a lone continuation byte, a truncated sequence and a byte never used by UTF-8
+            bytes.write(byteArrayOf(0x80.toByte(), 0xC3.toByte(), 0x20, 0xFF.toByte(), 0x0A))
+        }
+        return bytes.toByteArray()
+    }
+
+    private fun text(provider: Provider): String {
+        val text = StringBuilder()
+        val buffer = CharArray(8192)
+        provider.use {
+            while (true) {
+                val count = it.read(buffer, 0, buffer.size)
+                if (count < 0) break
+                text.append(buffer, 0, count)
+            }
+        }
+        return text.toString()
+    }
+
+    private fun load(name: String, bytes: ByteArray): ByteBuffer {
+        val file = File(directory, name).apply { writeBytes(bytes) }
+        return TestSmellDetector.readSource(file.path)
+    }
+
+    @Test
+    fun `A small source is read into an array and decoded with replacements`() {
+        val bytes = source(1000)
+        val source = load("Small.java", bytes)
+        Assertions.assertTrue(source.hasArray())
+        Assertions.assertEquals(String(bytes, StandardCharsets.UTF_8), text(TestSmellDetector.decode(source)))
+    }
+
+    @Test
+    fun `A large source is mapped and decoded as if it had been read into an array`() {
+        val bytes = source(TestSmellDetector.MAPPED_SOURCE_SIZE.toInt() + 1000)
+        val source = load("Large.java", bytes)
+        Assertions.assertFalse(source.hasArray())
+        val expected = String(bytes, StandardCharsets.UTF_8)
+        Assertions.assertEquals(expected, text(TestSmellDetector.decode(source)))
+        Assertions.assertEquals(expected, text(TestSmellDetector.decode(ByteBuffer.wrap(bytes))))
+        // the source is not consumed, a later decoding gives the same text
+        Assertions.assertEquals(expected, text(TestSmellDetector.decode(source)))
+    }
+}